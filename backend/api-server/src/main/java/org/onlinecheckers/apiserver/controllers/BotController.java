@@ -2,11 +2,21 @@ package org.onlinecheckers.apiserver.controllers;
 
 import org.onlinecheckers.bot.dto.BotMoveRequestDto;
 import org.onlinecheckers.bot.dto.BotMoveResponseDto;
+import org.onlinecheckers.apiserver.exceptions.BotBusyException;
+import org.onlinecheckers.apiserver.exceptions.InvalidBotRequestException;
+import org.onlinecheckers.apiserver.model.dtos.BotStatsDto;
 import org.onlinecheckers.apiserver.services.BotService;
 
 import org.springframework.web.bind.annotation.*;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/bot")
@@ -18,8 +28,17 @@ public class BotController {
     @Value("${bot.lambda.enabled:false}")
     private boolean useLambda;
 
+    // Largest batch accepted by /moves, the same limit as the Lambda's /bot/moves
+    @Value("${bot.batch.max-size:16}")
+    private int batchMaxSize;
+
+    /**
+     * The move is calculated on the bot executor, the request thread is released meanwhile
+     */
     @PostMapping("/move")
-    public BotMoveResponseDto calculateBotMove(@RequestBody BotMoveRequestDto request) {
+    public CompletableFuture<BotMoveResponseDto> calculateBotMove(@RequestBody BotMoveRequestDto request) {
+        validate(request, "");
+
         if (useLambda) {
             // Use Lambda for bot calculation
             return botService.calculateBotMoveLambda(request);
@@ -28,4 +47,66 @@ public class BotController {
             return botService.calculateBotMove(request);
         }
     }
+
+    /**
+     * Calculate the moves of several positions in one request, in the order of the requests
+     */
+    @PostMapping("/moves")
+    public CompletableFuture<List<BotMoveResponseDto>> calculateBotMoves(@RequestBody List<BotMoveRequestDto> requests) {
+        if (requests == null || requests.isEmpty()) {
+            throw new InvalidBotRequestException("Missing requests");
+        }
+        if (requests.size() > batchMaxSize) {
+            throw new InvalidBotRequestException("Too many requests in batch (max " + batchMaxSize + ")");
+        }
+        for (int i = 0; i < requests.size(); i++) {
+            validate(requests.get(i), " at index " + i);
+        }
+
+        if (useLambda) {
+            return botService.calculateBotMovesLambda(requests);
+        } else {
+            return botService.calculateBotMoves(requests);
+        }
+    }
+
+    @GetMapping("/stats")
+    public BotStatsDto getStats() {
+        return botService.getStats();
+    }
+
+    /**
+     * Check a move request like the Lambda does
+     *
+     * @param where Appended to the error message, to locate the request in a batch
+     * @throws InvalidBotRequestException If the request is not valid
+     */
+    private void validate(BotMoveRequestDto request, String where) {
+        String error = null;
+        if (request == null || request.getBoard() == null || request.getBoard().length != 8) {
+            error = "Invalid board state";
+        } else if (request.getPlayerColor() == null ||
+                   (!request.getPlayerColor().equalsIgnoreCase("white") &&
+                    !request.getPlayerColor().equalsIgnoreCase("black"))) {
+            error = "Invalid player color";
+        } else if (request.getDifficulty() < 1 || request.getDifficulty() > 4) {
+            error = "Invalid difficulty level";
+        } else if (request.getTimeLimitMs() != null && request.getTimeLimitMs() <= 0) {
+            error = "Invalid time limit";
+        }
+
+        if (error != null) {
+            throw new InvalidBotRequestException(error + where);
+        }
+    }
+
+    @ExceptionHandler(BotBusyException.class)
+    public ResponseEntity<Map<String, Object>> handleBotBusy(BotBusyException e) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(Map.of(
+                    "errorCode", "BOT_BUSY",
+                    "message", e.getMessage()
+                ));
+    }
 }
\ No newline at end of file
@@ -7,8 +7,9 @@ import org.onlinecheckers.apiserver.model.dtos.PlayerRestartDto;
 import org.onlinecheckers.apiserver.services.MoveService;
 import org.onlinecheckers.apiserver.services.GameService;
 import org.onlinecheckers.apiserver.services.RestartService;
-import org.onlinecheckers.apiserver.repositories.GameRepository;
+import org.onlinecheckers.apiserver.services.GameStateStore;
 import org.onlinecheckers.apiserver.model.entities.Game;
+import org.onlinecheckers.apiserver.exceptions.SessionGameNotFoundException;
 import org.onlinecheckers.apiserver.exceptions.UnauthorizedMoveException;
 import org.onlinecheckers.apiserver.exceptions.UnauthorizedChatException;
 import org.onlinecheckers.apiserver.exceptions.UnauthorizedResetException;
@@ -37,8 +38,9 @@ public class GameWebSocketHandler implements WebSocketHandler {
     @Autowired
     private RestartService restartService;
     
+    // Games are read and changed in memory, and saved behind
     @Autowired
-    private GameRepository gameRepository;
+    private GameStateStore gameStateStore;
 
     private final ObjectMapper objectMapper = new ObjectMapper();
     
@@ -115,13 +117,12 @@ public class GameWebSocketHandler implements WebSocketHandler {
         String httpSessionId = getHttpSessionId(session);
         boolean isAuthorized = isUserAuthorized(gameId, httpSessionId);
         
-        // Manage spectator tracking - use query that loads ALL collections
-        Game game = gameRepository.findByIdWithAllCollections(gameId).orElse(null);
+        // Manage spectator tracking
+        Game game = findGame(gameId);
         if (game != null) {
-            if (!isAuthorized) {
+            if (!isAuthorized && !game.isSpectatorSession(httpSessionId)) {
                 // User is a spectator - add to spectator sessions
-                game.addSpectatorSession(httpSessionId);
-                gameRepository.save(game);
+                gameStateStore.update(gameId, g -> g.addSpectatorSession(httpSessionId));
                 System.out.println("Added spectator session " + httpSessionId + " to game " + gameId);
             }
         }
@@ -192,11 +193,9 @@ public class GameWebSocketHandler implements WebSocketHandler {
             // Convert to existing MessageDto format
             MessageDto messageDto = new MessageDto(message.getPlayerId(), message.getText());
             
-            // Use existing game service (assuming it has a chat method)
-            gameRepository.findById(message.getGameId()).ifPresent(game -> {
-                game.setChat(game.getChat() + "<b>" + messageDto.player() + "</b>" + ": " + messageDto.text() + "\n");
-                gameRepository.save(game);
-            });
+            gameStateStore.update(message.getGameId(), game ->
+                game.setChat(game.getChat() + "<b>" + messageDto.player() + "</b>" + ": " + messageDto.text() + "\n")
+            );
             
             // Broadcast updated game state (includes chat)
             broadcastGameStateToGame(message.getGameId());
@@ -254,8 +253,7 @@ public class GameWebSocketHandler implements WebSocketHandler {
                 return;
             }
             
-            // Use existing game service reset method
-            gameRepository.findById(message.getGameId()).ifPresent(game -> {
+            gameStateStore.update(message.getGameId(), game -> {
                 game.setBoard(game.getBOARDINIT());
                 game.setTurno(org.onlinecheckers.apiserver.model.entities.enums.Team.WHITE);
                 game.setPedineB(12);
@@ -265,7 +263,6 @@ public class GameWebSocketHandler implements WebSocketHandler {
                 game.setPartitaTerminata(false);
                 game.setVincitore(org.onlinecheckers.apiserver.model.entities.enums.Team.NONE);
                 game.getCronologiaMosse().clear();
-                gameRepository.save(game);
             });
             
             // Reset restart status
@@ -354,12 +351,11 @@ public class GameWebSocketHandler implements WebSocketHandler {
         String playerId = sessionToPlayer.get(session.getId());
         
         if (gameId != null && playerId != null) {
-            // Remove from spectator sessions if applicable - use query that loads ALL collections
+            // Remove from spectator sessions if applicable
             String httpSessionId = getHttpSessionId(session);
-            Game game = gameRepository.findByIdWithAllCollections(gameId).orElse(null);
+            Game game = findGame(gameId);
             if (game != null && game.isSpectatorSession(httpSessionId)) {
-                game.removeSpectatorSession(httpSessionId);
-                gameRepository.save(game);
+                gameStateStore.update(gameId, g -> g.removeSpectatorSession(httpSessionId));
                 System.out.println("Removed spectator session " + httpSessionId + " from game " + gameId);
                 
                 // Broadcast updated game state to reflect new spectator count
@@ -431,8 +427,7 @@ public class GameWebSocketHandler implements WebSocketHandler {
      */
     private boolean isUserAuthorized(String gameId, String httpSessionId) {
         try {
-            // Usa la query con fetch join
-            Game game = gameRepository.findByIdWithAuthorizedSessions(gameId).orElse(null);
+            Game game = findGame(gameId);
             if (game == null) {
                 return false;
             }
@@ -449,7 +444,7 @@ public class GameWebSocketHandler implements WebSocketHandler {
 
     private boolean isValidPlayerForGame(String gameId, String nickname, String sessionId) {
 
-        Game game = gameRepository.findByIdWithAuthorizedSessionsAndPlayers(gameId).orElse(null);
+        Game game = findGame(gameId);
 
         if (game == null || !game.isSessionAuthorized(sessionId)) {
             return false;
@@ -465,6 +460,19 @@ public class GameWebSocketHandler implements WebSocketHandler {
         return nicknameValid;
     }
 
+    /**
+     * Get the current state of a game from memory
+     * @param gameId The game ID
+     * @return The game, to read only, or null if it doesn't exist
+     */
+    private Game findGame(String gameId) {
+        try {
+            return gameStateStore.get(gameId);
+        } catch (SessionGameNotFoundException e) {
+            return null;
+        }
+    }
+
     /**
      * Send an authorization error message to the WebSocket client
      * @param session The WebSocket session
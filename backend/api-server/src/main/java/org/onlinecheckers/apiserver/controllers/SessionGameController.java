@@ -8,7 +8,9 @@ import org.onlinecheckers.apiserver.model.mappers.GameMapper;
 import org.onlinecheckers.apiserver.repositories.GameRepository;
 import org.onlinecheckers.apiserver.repositories.PlayerRepository;
 import org.onlinecheckers.apiserver.repositories.PlayerRestartRepository;
+import org.onlinecheckers.apiserver.services.GameStateStore;
 import org.onlinecheckers.apiserver.services.MoveService;
+import org.onlinecheckers.apiserver.exceptions.GameFullException;
 import org.onlinecheckers.apiserver.exceptions.SessionGameNotFoundException;
 import org.onlinecheckers.apiserver.exceptions.UnauthorizedMoveException;
 import org.onlinecheckers.apiserver.exceptions.UnauthorizedChatException;
@@ -42,9 +44,13 @@ public class SessionGameController {
     @Autowired
     PlayerRestartRepository prdao;
 
+    // Games are read and changed in memory, and saved behind
+    @Autowired
+    GameStateStore gameStateStore;
+
     @GetMapping("/{id}")
     public GameAccessDto stateGame(@PathVariable String id, HttpServletRequest request) {
-        Game game = gameDao.findById(id).orElseThrow(() -> new SessionGameNotFoundException(id));
+        Game game = gameStateStore.get(id);
         String sessionId = getSessionId(request);
         
         // Determine user role based on session authorization
@@ -113,78 +119,81 @@ public class SessionGameController {
 
     @PostMapping("/join/{id}")
     public boolean joinGame(@PathVariable String id, @RequestBody PlayerDto player, HttpServletRequest request) {
-        boolean success = true;
-        Game g = gameDao.findById(id).orElse(null);
-        if (g == null) {
-            success = false;
-            return success;
-        }
+        String sessionId = getSessionId(request);
+        Game g;
+        try {
+            g = gameStateStore.update(id, game -> {
+                // Checked in the game's mailbox, so two players joining at once can't both take the last seat
+                if (game.getPlayers().size() >= 2) {
+                    throw new GameFullException("Game " + id + " already has 2 players");
+                }
+
+                // Add joiner's session to authorized sessions (only if game has space)
+                game.addAuthorizedSession(sessionId);
+
+                // Determine the opponent's team
+                Team creatorTeam = game.getPlayers().isEmpty() ? Team.WHITE : game.getPlayers().get(0).getTeam();
+                Team joinerTeam = (creatorTeam == Team.WHITE) ? Team.BLACK : Team.WHITE;
 
-        // Check if game already has 2 players
-        if (g.getPlayers().size() >= 2) {
+                // Check if the nickname is already in use and make it unique if necessary
+                String nickname = player.nickname();
+                List<String> existingNicknames = game.getPlayers().stream()
+                        .map(Player::getNickname)
+                        .toList();
+
+                // If the nickname already exists, add a suffix "2"
+                if (existingNicknames.contains(nickname)) {
+                    nickname = nickname + "2";
+
+                    // If nickname+2 also exists, continue to increment the number
+                    int suffix = 3;
+                    while (existingNicknames.contains(nickname)) {
+                        nickname = player.nickname() + suffix;
+                        suffix++;
+                    }
+                }
+
+                List<Player> p = pDao.findByNickname(player.nickname());
+                for (Player p1 : p) {
+                    if (p1.getGame() == null) {
+                        p1.setNickname(nickname);
+                        p1.setTeam(joinerTeam);
+                        game.addPlayer(p1);
+                        // The player row holds the link to the game: save it now
+                        pDao.save(p1);
+                        break;
+                    }
+                }
+            });
+        } catch (SessionGameNotFoundException e) {
+            return false;
+        } catch (GameFullException e) {
             // Game is full, user will be a spectator
             // Don't add them to authorized sessions
             return false; // They can still view as spectator via stateGame endpoint
         }
 
-        // Add joiner's session to authorized sessions (only if game has space)
-        String sessionId = getSessionId(request);
-        g.addAuthorizedSession(sessionId);
-        
         // Store nickname in session for future reference
         storeNicknameInSession(request, player.nickname());
 
-        // Determine the opponent's team
-        Team creatorTeam = g.getPlayers().isEmpty() ? Team.WHITE : g.getPlayers().get(0).getTeam();
-        Team joinerTeam = (creatorTeam == Team.WHITE) ? Team.BLACK : Team.WHITE;
-
-        // Check if the nickname is already in use and make it unique if necessary
-        String nickname = player.nickname();
-        List<String> existingNicknames = g.getPlayers().stream()
-                .map(Player::getNickname)
-                .toList();
-
-        // If the nickname already exists, add a suffix "2"
-        if (existingNicknames.contains(nickname)) {
-            nickname = nickname + "2";
-
-            // If nickname+2 also exists, continue to increment the number
-            int suffix = 3;
-            while (existingNicknames.contains(nickname)) {
-                nickname = player.nickname() + suffix;
-                suffix++;
-            }
-        }
-
-        List<Player> p = pDao.findByNickname(player.nickname());
-        for (Player p1 : p) {
-            if (p1.getGame() == null) {
-                p1.setNickname(nickname);
-                p1.setTeam(joinerTeam);
-                g.addPlayer(p1);
-                break;
-            }
-        }
-
         String nicknameB = g.getPlayers().get(0).getTeam() == Team.BLACK ? g.getPlayers().get(0).getNickname() : g.getPlayers().get(1).getNickname();
         String nicknameW = g.getPlayers().get(0).getTeam() == Team.WHITE ? g.getPlayers().get(0).getNickname() : g.getPlayers().get(1).getNickname();
         PlayerRestartDto pRestart = new PlayerRestartDto(id,nicknameB,nicknameW,false,false);
         prdao.save(pRestart);
 
-        gameDao.save(g);
-        return success;
+        return true;
     }
 
     @GetMapping("/{id}/board")
     public GameDto getGame(@PathVariable String id) {
-        Game g = gameDao.findById(id).orElseThrow(() -> new SessionGameNotFoundException(id));
+        Game g = gameStateStore.get(id);
         GameDto gdto = gameMapper.toDto(g);
         return gdto;
     }
 
     @PostMapping("/{id}/move")
     public GameDto makeMove(@PathVariable String id, @RequestBody MoveDto move, HttpServletRequest request) {
-        Game game = gameDao.findById(id).orElseThrow(() -> new SessionGameNotFoundException(id));
+        Game game = gameStateStore.get(id);
         String sessionId = getSessionId(request);
         
         // Check if user is authorized to make moves
@@ -204,6 +213,7 @@ public class SessionGameController {
     @Transactional
     public void deleteGame(@PathVariable String id) {
         try{
+            gameStateStore.remove(id);
             pDao.deleteAllByGameId(id);
             prdao.deleteById(id);
             gameDao.deleteById(id);
@@ -214,7 +224,7 @@ public class SessionGameController {
 
     @PostMapping("/{id}/chat")
     public void chat(@PathVariable String id, @RequestBody MessageDto message, HttpServletRequest request) {
-        Game g = gameDao.findById(id).orElseThrow(() -> new SessionGameNotFoundException(id));
+        Game g = gameStateStore.get(id);
         String sessionId = getSessionId(request);
         
         // Check if user is authorized to send chat messages
@@ -222,13 +232,14 @@ public class SessionGameController {
             throw new UnauthorizedChatException("Spectators cannot send chat messages. Only authorized players can chat.");
         }
         
-        g.setChat(g.getChat() + "<b>" + message.player() + "</b>" + ": " + message.text() + "\n");
-        gameDao.save(g);
+        gameStateStore.update(id, game ->
+            game.setChat(game.getChat() + "<b>" + message.player() + "</b>" + ": " + message.text() + "\n")
+        );
     }
 
     @PostMapping("/{id}/reset")
     public void resetGame(@PathVariable String id, HttpServletRequest request) {
-        Game g = gameDao.findById(id).orElseThrow(() -> new SessionGameNotFoundException(id));
+        Game g = gameStateStore.get(id);
         String sessionId = getSessionId(request);
         
         // Check if user is authorized to reset the game
@@ -236,17 +247,17 @@ public class SessionGameController {
             throw new UnauthorizedResetException("Spectators cannot reset the game. Only authorized players can reset.");
         }
         
-        g.setBoard(g.getBOARDINIT());
-        g.setTurno(Team.WHITE);
-        g.setPedineB(12);
-        g.setPedineW(12);
-        g.setDamaW(0);
-        g.setDamaB(0);
-        g.setPartitaTerminata(false);
-        g.setVincitore(Team.NONE);
-        g.getCronologiaMosse().clear();
-
-        gameDao.save(g);
+        gameStateStore.update(id, game -> {
+            game.setBoard(game.getBOARDINIT());
+            game.setTurno(Team.WHITE);
+            game.setPedineB(12);
+            game.setPedineW(12);
+            game.setDamaW(0);
+            game.setDamaB(0);
+            game.setPartitaTerminata(false);
+            game.setVincitore(Team.NONE);
+            game.getCronologiaMosse().clear();
+        });
     }
 
     /**
@@ -0,0 +1,19 @@
+package org.onlinecheckers.apiserver.exceptions;
+
+/**
+ * The bot cannot take another move calculation right now
+ */
+public class BotBusyException extends RuntimeException {
+
+    // Suggested wait before retrying, sent as the Retry-After header
+    private final long retryAfterSeconds;
+
+    public BotBusyException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,10 @@
+package org.onlinecheckers.apiserver.exceptions;
+
+/**
+ * Thrown when a player joins a game that already has two players
+ */
+public class GameFullException extends RuntimeException {
+    public GameFullException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,14 @@
+package org.onlinecheckers.apiserver.exceptions;
+
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.http.HttpStatus;
+
+/**
+ * A bot move request (or batch) that cannot be calculated
+ */
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidBotRequestException extends RuntimeException {
+    public InvalidBotRequestException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,27 @@
+package org.onlinecheckers.apiserver.model.dtos;
+
+/**
+ * Bot move cache, executor, pondering and Lambda client metrics and search totals since the server started
+ */
+public record BotStatsDto(
+    boolean cacheEnabled,
+    int cacheSize,
+    long cacheHits,
+    long cacheMisses,
+    long cacheEvictions,
+    double cacheHitRate,     // Hits over lookups, 0 before the first lookup
+    long searchedNodes,      // Positions searched by the local engine
+    int executorActive,      // Moves being calculated
+    int executorQueued,      // Moves waiting for a bot thread
+    long executorCompleted,
+    long executorRejected,   // Requests turned away with 503 because the queue was full
+    long executorAvgWaitMs,  // Average time in the queue
+    long executorMaxWaitMs,
+    long executorAvgRunMs,   // Average calculation time
+    long ponderHits,         // Requests answered with a move pondered while the human was thinking
+    long ponderMisses,       // Requests of pondered games where the human played an unexpected reply
+    String lambdaCircuit,    // CLOSED, OPEN or HALF_OPEN, null when no Lambda is configured
+    long lambdaMoves,        // Moves answered by the Lambda within its usual latency
+    long lambdaHedgedMoves,  // Moves also calculated locally because the Lambda was slow
+    long lambdaFallbackMoves // Moves calculated locally because the Lambda failed or was skipped
+) {}
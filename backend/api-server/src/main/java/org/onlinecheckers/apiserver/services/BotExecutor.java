@@ -0,0 +1,151 @@
+package org.onlinecheckers.apiserver.services;
+
+import org.onlinecheckers.apiserver.exceptions.BotBusyException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Bounded pool for bot move calculations, so bot searches never run on the
+ * servlet threads that serve game and WebSocket traffic.
+ *
+ * At most "threads" moves are calculated at once and at most "queueDepth" more
+ * wait for a thread. Further requests are rejected with a BotBusyException
+ * instead of piling up.
+ */
+public class BotExecutor {
+
+    private final int threads;
+    private final ThreadPoolExecutor executor;
+
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong totalWaitMs = new AtomicLong();
+    private final AtomicLong totalRunMs = new AtomicLong();
+    private final AtomicLong maxWaitMs = new AtomicLong();
+
+    public BotExecutor(int threads, int queueDepth) {
+        this.threads = threads;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueDepth), r -> {
+                    Thread thread = new Thread(r, "bot-move-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Queue a calculation
+     *
+     * @return The result, completed by a pool thread
+     * @throws BotBusyException If all threads are busy and the queue is full
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        long queuedAt = System.currentTimeMillis();
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                long startedAt = System.currentTimeMillis();
+                try {
+                    return task.get();
+                } finally {
+                    long waitMs = startedAt - queuedAt;
+                    totalWaitMs.addAndGet(waitMs);
+                    maxWaitMs.accumulateAndGet(waitMs, Math::max);
+                    totalRunMs.addAndGet(System.currentTimeMillis() - startedAt);
+                    completed.incrementAndGet();
+                }
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            rejected.incrementAndGet();
+            throw new BotBusyException("Too many bot moves in progress", retryAfterSeconds());
+        }
+    }
+
+    /**
+     * Queue several calculations, all of them or none: a batch is never left half
+     * calculated for a response that will not be sent
+     *
+     * @return The results, in the order of the tasks
+     * @throws BotBusyException If the free threads and queue places cannot take all the tasks
+     */
+    public <T> List<CompletableFuture<T>> submitAll(List<Supplier<T>> tasks) {
+        int free = threads - executor.getActiveCount() + executor.getQueue().remainingCapacity();
+        if (tasks.size() > free) {
+            rejected.addAndGet(tasks.size());
+            throw new BotBusyException("Too many bot moves in progress", retryAfterSeconds());
+        }
+
+        List<CompletableFuture<T>> futures = new ArrayList<>(tasks.size());
+        try {
+            for (Supplier<T> task : tasks) {
+                futures.add(submit(task));
+            }
+        } catch (BotBusyException e) {
+            // Other requests took the room meanwhile: cancelled tasks still in the queue never run
+            futures.forEach(future -> future.cancel(false));
+            throw e;
+        }
+        return futures;
+    }
+
+    /**
+     * Estimated time until a new request would get a thread: the moves ahead of it
+     * at the average calculation time, shared among the threads (at least 1 second)
+     */
+    private long retryAfterSeconds() {
+        long ahead = executor.getActiveCount() + executor.getQueue().size();
+        long estimateMs = getAverageRunMs() * ahead / threads;
+        return Math.max(1, (estimateMs + 999) / 1000);
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // Metrics
+    public int getActive() {
+        return executor.getActiveCount();
+    }
+
+    public int getQueued() {
+        return executor.getQueue().size();
+    }
+
+    public long getCompleted() {
+        return completed.get();
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    /**
+     * Average time spent in the queue, 0 before the first calculation
+     */
+    public long getAverageWaitMs() {
+        long count = completed.get();
+        return count > 0 ? totalWaitMs.get() / count : 0;
+    }
+
+    public long getMaxWaitMs() {
+        return maxWaitMs.get();
+    }
+
+    /**
+     * Average calculation time once a thread picked the request, 0 before the first calculation
+     */
+    public long getAverageRunMs() {
+        long count = completed.get();
+        return count > 0 ? totalRunMs.get() / count : 0;
+    }
+}
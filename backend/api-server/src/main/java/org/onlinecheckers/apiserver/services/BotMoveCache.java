@@ -0,0 +1,93 @@
+package org.onlinecheckers.apiserver.services;
+
+import org.onlinecheckers.bot.dto.BotMoveResponseDto;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded in-memory cache of bot moves, so a position reached by many players
+ * (openings, replays after a reset) is only searched once per difficulty.
+ *
+ * Entries expire after a time to live; when the cache is full, the least
+ * recently used entry is evicted.
+ */
+public class BotMoveCache {
+
+    /**
+     * What the move depends on: the canonical position (the same for a position and its
+     * colour-flipped twin), the difficulty and the time budget requested by the client
+     * (0 for the difficulty's default)
+     */
+    public record Key(long positionHash, int difficulty, long timeLimitMs) {}
+
+    private record Entry(BotMoveResponseDto response, long expiresAt) {}
+
+    private final int maxEntries;
+    private final long ttlMs;
+
+    // Access-ordered, so the eldest entry is the least recently used
+    private final LinkedHashMap<Key, Entry> entries;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public BotMoveCache(int maxEntries, long ttlMs) {
+        this.maxEntries = maxEntries;
+        this.ttlMs = ttlMs;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+                if (size() > BotMoveCache.this.maxEntries) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Get the cached move for a key
+     *
+     * @return The move, or null if it is not cached or has expired
+     */
+    public synchronized BotMoveResponseDto get(Key key) {
+        Entry entry = entries.get(key);
+        if (entry != null && entry.expiresAt() < System.currentTimeMillis()) {
+            entries.remove(key);
+            evictions.incrementAndGet();
+            entry = null;
+        }
+
+        if (entry == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return entry.response();
+    }
+
+    public synchronized void put(Key key, BotMoveResponseDto response) {
+        entries.put(key, new Entry(response, System.currentTimeMillis() + ttlMs));
+    }
+
+    // Metrics
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+}
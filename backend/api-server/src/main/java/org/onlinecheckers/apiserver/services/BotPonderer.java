@@ -0,0 +1,216 @@
+package org.onlinecheckers.apiserver.services;
+
+import org.onlinecheckers.bot.dto.BotMoveRequestDto;
+import org.onlinecheckers.bot.dto.BotMoveResponseDto;
+import org.onlinecheckers.bot.service.BotAlgorithm;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+
+/**
+ * Pondering: search the bot's answers to the human's likely replies while the human is thinking.
+ *
+ * After each bot move, the positions after the most likely replies are searched in the
+ * background, one at a time, with the same settings as a real request. The searches fill
+ * the transposition table, and their moves are kept until the game's next request:
+ * - if the human played a predicted reply, its pondered move is returned (instantly, or
+ *   as soon as its search ends if it is still running)
+ * - otherwise the remaining searches are stopped and the request is searched as usual,
+ *   starting from the warmed transposition table
+ *
+ * Games are told apart by the request's gameId, so two games that reach the same
+ * position never take or stop each other's pondering; requests without one are not
+ * pondered. Moves found by complete searches are also handed to a listener (BotService
+ * caches them). Pondering runs on its own low priority thread, and BotService does not
+ * start it while real requests are waiting for the bot executor.
+ */
+public class BotPonderer {
+
+    // Games whose pondering can wait for the ponder thread; further ones are not pondered
+    private static final int MAX_QUEUED_GAMES = 4;
+
+    private static class Prediction {
+        final BotMoveRequestDto request;
+        final long positionHash;
+        final AtomicBoolean stop = new AtomicBoolean();
+
+        // Set by whoever gets the prediction first: the ponder thread to search it, or a request to skip it
+        final AtomicBoolean claimed = new AtomicBoolean();
+        final CompletableFuture<BotMoveResponseDto> result = new CompletableFuture<>();
+
+        Prediction(BotMoveRequestDto request) {
+            this.request = request;
+            this.positionHash = BotAlgorithm.positionHash(request);
+        }
+    }
+
+    private record Job(List<Prediction> predictions, long expiresAt) {}
+
+    private final BotAlgorithm botAlgorithm;
+    private final int replies;
+    private final long ttlMs;
+    private final BiConsumer<BotMoveRequestDto, BotMoveResponseDto> found;
+    private final ThreadPoolExecutor executor;
+
+    // Pondering jobs by game id
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * @param replies Number of human replies pondered after each bot move
+     * @param ttlMs   Time after which a game that sent no new request is forgotten
+     * @param found   Called with every move found by a complete pondering search
+     */
+    public BotPonderer(BotAlgorithm botAlgorithm, int replies, long ttlMs,
+                       BiConsumer<BotMoveRequestDto, BotMoveResponseDto> found) {
+        this.botAlgorithm = botAlgorithm;
+        this.replies = replies;
+        this.ttlMs = ttlMs;
+        this.found = found;
+        this.executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(MAX_QUEUED_GAMES), r -> {
+                    Thread thread = new Thread(r, "bot-ponder");
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                });
+    }
+
+    /**
+     * Start pondering the replies to a move the bot just played.
+     * Predicting the replies takes a short search, so it is done on the ponder thread too.
+     */
+    public void ponder(BotMoveRequestDto request, BotMoveResponseDto response) {
+        expireJobs();
+        if (request.getGameId() == null) {
+            return;
+        }
+        try {
+            executor.execute(() -> run(request, response));
+        } catch (RejectedExecutionException e) {
+            // Ponder thread busy with other games: this move is simply not pondered
+        }
+    }
+
+    /**
+     * Take the pondered move for a request, and stop pondering for its game
+     *
+     * @return The move (possibly still being searched), or null if the request must be searched
+     */
+    public CompletableFuture<BotMoveResponseDto> take(BotMoveRequestDto request) {
+        Job job = request.getGameId() != null ? jobs.remove(request.getGameId()) : null;
+        if (job == null) {
+            return null;
+        }
+
+        // A pondered move is only valid if the game's history cannot change it (see BotMoveCache)
+        long positionHash = BotAlgorithm.positionHash(request);
+        boolean usable = !BotAlgorithm.historyMatters(request);
+
+        Prediction match = null;
+        for (Prediction prediction : job.predictions()) {
+            if (usable && match == null && prediction.positionHash == positionHash && samePlayer(prediction.request, request)) {
+                match = prediction;
+            } else {
+                stop(prediction);
+            }
+        }
+
+        // Not searched yet: claiming it makes the ponder thread skip it
+        if (match == null || match.claimed.compareAndSet(false, true)) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return match.result;
+    }
+
+    private void run(BotMoveRequestDto request, BotMoveResponseDto response) {
+        // The game is over or the move does not apply to the request
+        List<BotMoveRequestDto> predicted = botAlgorithm.predictReplies(request, response, replies);
+        if (predicted.isEmpty()) {
+            return;
+        }
+
+        List<Prediction> predictions = new ArrayList<>();
+        for (BotMoveRequestDto next : predicted) {
+            predictions.add(new Prediction(next));
+        }
+
+        // Replaces the game's previous job, if its request never came
+        Job previous = jobs.put(request.getGameId(), new Job(predictions, System.currentTimeMillis() + ttlMs));
+        if (previous != null) {
+            previous.predictions().forEach(BotPonderer::stop);
+        }
+
+        for (Prediction prediction : predictions) {
+            if (!prediction.claimed.compareAndSet(false, true)) {
+                continue;
+            }
+            try {
+                BotMoveResponseDto move = botAlgorithm.calculateMove(prediction.request, prediction.stop);
+                prediction.result.complete(move);
+
+                // A stopped search answers with a shallower move, not worth keeping
+                if (!prediction.stop.get()) {
+                    found.accept(prediction.request, move);
+                }
+            } catch (RuntimeException e) {
+                prediction.result.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * Stop pondering for games that sent no request for a while (finished or abandoned)
+     */
+    private void expireJobs() {
+        long now = System.currentTimeMillis();
+        jobs.entrySet().removeIf(entry -> {
+            if (entry.getValue().expiresAt() >= now) {
+                return false;
+            }
+            entry.getValue().predictions().forEach(BotPonderer::stop);
+            return true;
+        });
+    }
+
+    /**
+     * Stop a prediction's search, or keep it from starting
+     */
+    private static void stop(Prediction prediction) {
+        prediction.claimed.set(true);
+        prediction.stop.set(true);
+    }
+
+    private static boolean samePlayer(BotMoveRequestDto a, BotMoveRequestDto b) {
+        return a.getPlayerColor().equalsIgnoreCase(b.getPlayerColor()) && a.getDifficulty() == b.getDifficulty()
+                && Objects.equals(a.getTimeLimitMs(), b.getTimeLimitMs());
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // Metrics
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+}
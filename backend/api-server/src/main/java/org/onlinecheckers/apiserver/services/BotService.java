@@ -1,13 +1,23 @@
 package org.onlinecheckers.apiserver.services;
 
+import org.onlinecheckers.apiserver.exceptions.BotBusyException;
+import org.onlinecheckers.apiserver.model.dtos.BotStatsDto;
 import org.onlinecheckers.bot.dto.BotMoveRequestDto;
 import org.onlinecheckers.bot.dto.BotMoveResponseDto;
+import org.onlinecheckers.bot.model.Symmetry;
 import org.onlinecheckers.bot.service.BotAlgorithm;
+import org.onlinecheckers.bot.service.SearchConfig;
 
 import org.springframework.stereotype.Service;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.web.client.RestTemplate;
-import org.springframework.http.*;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 @Service
 public class BotService {
@@ -15,40 +25,357 @@ public class BotService {
     @Value("${bot.lambda.url:}")
     private String lambdaUrl;
 
-    private final RestTemplate restTemplate = new RestTemplate();
-    private final BotAlgorithm botAlgorithm = new BotAlgorithm();
+    @Value("${bot.lambda.connect-timeout-ms:2000}")
+    private long lambdaConnectTimeoutMs;
+
+    @Value("${bot.lambda.read-timeout-ms:10000}")
+    private long lambdaReadTimeoutMs;
+
+    @Value("${bot.lambda.hedge-percentile:95}")
+    private double lambdaHedgePercentile;
+
+    @Value("${bot.lambda.hedge-initial-delay-ms:6000}")
+    private long lambdaHedgeInitialDelayMs;
+
+    // Must not exceed the Lambda's bot.batch.max-size
+    @Value("${bot.lambda.batch-max-size:16}")
+    private int lambdaBatchMaxSize;
+
+    @Value("${bot.lambda.circuit.failure-threshold:5}")
+    private int lambdaFailureThreshold;
+
+    @Value("${bot.lambda.circuit.open-seconds:30}")
+    private long lambdaOpenSeconds;
+
+    @Value("${bot.search.tt-size-mb:" + SearchConfig.DEFAULT_TRANSPOSITION_TABLE_SIZE_MB + "}")
+    private int transpositionTableSizeMb;
+
+    @Value("${bot.search.max-time-limit-ms:" + SearchConfig.DEFAULT_MAX_TIME_LIMIT_MS + "}")
+    private long maxTimeLimitMs;
+
+    @Value("${bot.search.threads:" + SearchConfig.DEFAULT_THREADS + "}")
+    private int searchThreads;
+
+    @Value("${bot.search.opening-book.enabled:true}")
+    private boolean openingBookEnabled;
+
+    @Value("${bot.search.opening-book.path:}")
+    private String openingBookPath;
+
+    @Value("${bot.search.tablebase.enabled:true}")
+    private boolean tablebaseEnabled;
+
+    @Value("${bot.search.tablebase.path:}")
+    private String tablebasePath;
+
+    @Value("${bot.search.quiescence-nodes:" + SearchConfig.DEFAULT_QUIESCENCE_NODE_LIMIT + "}")
+    private int quiescenceNodeLimit;
+
+    @Value("${bot.executor.threads:2}")
+    private int executorThreads;
+
+    @Value("${bot.executor.queue-depth:32}")
+    private int executorQueueDepth;
+
+    @Value("${bot.ponder.enabled:true}")
+    private boolean ponderEnabled;
+
+    @Value("${bot.ponder.replies:3}")
+    private int ponderReplies;
+
+    @Value("${bot.ponder.ttl-seconds:600}")
+    private long ponderTtlSeconds;
+
+    @Value("${bot.cache.enabled:true}")
+    private boolean cacheEnabled;
+
+    @Value("${bot.cache.max-entries:10000}")
+    private int cacheMaxEntries;
+
+    @Value("${bot.cache.ttl-seconds:3600}")
+    private long cacheTtlSeconds;
+
+    private BotAlgorithm botAlgorithm;
+
+    // Runs the local calculations, off the request threads. Lambda calls don't use it:
+    // they hold no thread while they wait, so only local CPU work is bounded
+    private BotExecutor botExecutor;
+
+    // Null when no Lambda URL is configured
+    private LambdaBotClient lambdaClient;
+
+    // Searches the human's likely replies between requests, null when pondering is disabled
+    private BotPonderer ponderer;
+
+    // Moves already calculated, null when caching is disabled
+    private BotMoveCache cache;
+
+    @PostConstruct
+    public void init() {
+        SearchConfig config = new SearchConfig();
+        config.setTranspositionTableSizeMb(transpositionTableSizeMb);
+        config.setMaxTimeLimitMs(maxTimeLimitMs);
+        config.setThreads(searchThreads);
+        config.setOpeningBookEnabled(openingBookEnabled);
+        config.setOpeningBookPath(openingBookPath);
+        config.setTablebaseEnabled(tablebaseEnabled);
+        config.setTablebasePath(tablebasePath);
+        config.setQuiescenceNodeLimit(quiescenceNodeLimit);
+        botAlgorithm = new BotAlgorithm(config);
+        botExecutor = new BotExecutor(executorThreads, executorQueueDepth);
+
+        if (ponderEnabled) {
+            // Pondered moves are cached like calculated ones
+            ponderer = new BotPonderer(botAlgorithm, ponderReplies, ponderTtlSeconds * 1000,
+                                       (request, move) -> cacheMove(cacheKey(request), request, move));
+        }
+
+        if (cacheEnabled) {
+            cache = new BotMoveCache(cacheMaxEntries, cacheTtlSeconds * 1000);
+        }
+
+        if (!lambdaUrl.isEmpty()) {
+            lambdaClient = new LambdaBotClient(lambdaUrl, lambdaConnectTimeoutMs, lambdaReadTimeoutMs,
+                                               lambdaHedgePercentile, lambdaHedgeInitialDelayMs,
+                                               new CircuitBreaker(lambdaFailureThreshold, lambdaOpenSeconds * 1000),
+                                               botExecutor);
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        botExecutor.shutdown();
+        if (ponderer != null) {
+            ponderer.shutdown();
+        }
+        botAlgorithm.shutdown();
+        if (lambdaClient != null) {
+            lambdaClient.close();
+        }
+    }
+
+    /**
+     * Calculate bot move using AWS Lambda. Not pondered when the Lambda calculates the
+     * moves: pondering would spend the local CPU the Lambda is there to spare.
+     *
+     * @return The move, failing with BotBusyException if the Lambda fails and the bot executor is full
+     * @throws BotBusyException If the Lambda is skipped and the bot executor is full
+     */
+    public CompletableFuture<BotMoveResponseDto> calculateBotMoveLambda(BotMoveRequestDto request) {
+        return respond(request, () -> callLambda(request), lambdaClient == null);
+    }
 
     /**
-     * Calculate bot move using AWS Lambda
+     * Calculate bot move using local bot-core library
+     *
+     * @throws BotBusyException If the bot executor is full
      */
-    public BotMoveResponseDto calculateBotMoveLambda(BotMoveRequestDto request) {
-        try {
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_JSON);
-            HttpEntity<BotMoveRequestDto> entity = new HttpEntity<>(request, headers);
+    public CompletableFuture<BotMoveResponseDto> calculateBotMove(BotMoveRequestDto request) {
+        return respond(request, () -> botExecutor.submit(() -> botAlgorithm.calculateMove(request)), true);
+    }
 
-            String endpoint = lambdaUrl + "/bot/move";
-            ResponseEntity<BotMoveResponseDto> response = restTemplate.exchange(
-                    endpoint, HttpMethod.POST, entity, BotMoveResponseDto.class
-            );
+    /**
+     * Calculate the moves of several positions using AWS Lambda, in one call per chunk of
+     * positions that are not cached. The positions of a chunk the Lambda fails to answer
+     * are calculated locally like calculateBotMoves does.
+     *
+     * @return The moves, in the order of the requests
+     * @throws BotBusyException If the Lambda is skipped and the bot executor cannot take all the positions
+     */
+    public CompletableFuture<List<BotMoveResponseDto>> calculateBotMovesLambda(List<BotMoveRequestDto> requests) {
+        if (lambdaClient == null) {
+            return calculateBotMoves(requests);
+        }
 
-            if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
-                return response.getBody();
-            } else {
-                // Fallback to local implementation
-                return calculateBotMove(request);
+        BotMoveResponseDto[] responses = new BotMoveResponseDto[requests.size()];
+        List<Integer> missing = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            responses[i] = cachedMove(cacheKey(requests.get(i)), requests.get(i));
+            if (responses[i] == null) {
+                missing.add(i);
             }
-        } catch (Exception e) {
-            System.err.println("Lambda call failed: " + e.getMessage());
-            // Fallback to local implementation
-            return calculateBotMove(request);
         }
+
+        List<CompletableFuture<Void>> chunks = new ArrayList<>();
+        for (int start = 0; start < missing.size(); start += lambdaBatchMaxSize) {
+            List<Integer> indexes = missing.subList(start, Math.min(start + lambdaBatchMaxSize, missing.size()));
+            List<BotMoveRequestDto> chunk = indexes.stream().map(requests::get).toList();
+            chunks.add(lambdaClient.calculateMoves(chunk, () -> calculateBotMoves(chunk))
+                    .thenAccept(calculated -> {
+                        for (int i = 0; i < indexes.size(); i++) {
+                            BotMoveRequestDto request = chunk.get(i);
+                            cacheMove(cacheKey(request), request, calculated.get(i));
+                            responses[indexes.get(i)] = calculated.get(i);
+                        }
+                    }));
+        }
+
+        return CompletableFuture.allOf(chunks.toArray(new CompletableFuture[0]))
+                .thenApply(done -> List.of(responses));
     }
 
     /**
-     * Calculate bot move using local bot-core library
+     * Calculate the moves of several positions using local bot-core library, in parallel
+     * on the bot executor. Batches are not pondered: they are not live games.
+     *
+     * @return The moves, in the order of the requests
+     * @throws BotBusyException If the bot executor cannot take all the positions that are not cached
      */
-    public BotMoveResponseDto calculateBotMove(BotMoveRequestDto request) {
-        return botAlgorithm.calculateMove(request);
+    public CompletableFuture<List<BotMoveResponseDto>> calculateBotMoves(List<BotMoveRequestDto> requests) {
+        BotMoveResponseDto[] responses = new BotMoveResponseDto[requests.size()];
+        List<Integer> missing = new ArrayList<>();
+        List<Supplier<BotMoveResponseDto>> tasks = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            BotMoveRequestDto request = requests.get(i);
+            BotMoveCache.Key key = cacheKey(request);
+            responses[i] = cachedMove(key, request);
+            if (responses[i] == null) {
+                missing.add(i);
+                tasks.add(() -> {
+                    BotMoveResponseDto response = botAlgorithm.calculateMove(request);
+                    cacheMove(key, request, response);
+                    return response;
+                });
+            }
+        }
+
+        // Every position gets a place on the executor, or none does
+        List<CompletableFuture<BotMoveResponseDto>> futures = botExecutor.submitAll(tasks);
+
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+                .thenApply(done -> {
+                    for (int i = 0; i < futures.size(); i++) {
+                        responses[missing.get(i)] = futures.get(i).join();
+                    }
+                    return List.of(responses);
+                });
+    }
+
+    /**
+     * Cache, executor, pondering and Lambda metrics and search totals
+     */
+    public BotStatsDto getStats() {
+        long searchedNodes = botAlgorithm.getTotalNodes();
+
+        boolean cacheEnabled = cache != null;
+        int cacheSize = 0;
+        long cacheHits = 0, cacheMisses = 0, cacheEvictions = 0;
+        double cacheHitRate = 0.0;
+        if (cacheEnabled) {
+            cacheSize = cache.size();
+            cacheHits = cache.getHits();
+            cacheMisses = cache.getMisses();
+            cacheEvictions = cache.getEvictions();
+            long lookups = cacheHits + cacheMisses;
+            cacheHitRate = lookups > 0 ? (double) cacheHits / lookups : 0.0;
+        }
+
+        long ponderHits = ponderer != null ? ponderer.getHits() : 0;
+        long ponderMisses = ponderer != null ? ponderer.getMisses() : 0;
+
+        String lambdaCircuit = null;
+        long lambdaMoves = 0, lambdaHedgedMoves = 0, lambdaFallbackMoves = 0;
+        if (lambdaClient != null) {
+            lambdaCircuit = lambdaClient.getCircuitState().name();
+            lambdaMoves = lambdaClient.getLambdaMoves();
+            lambdaHedgedMoves = lambdaClient.getHedgedMoves();
+            lambdaFallbackMoves = lambdaClient.getFallbackMoves();
+        }
+
+        return new BotStatsDto(cacheEnabled, cacheSize, cacheHits, cacheMisses, cacheEvictions, cacheHitRate,
+                               searchedNodes,
+                               botExecutor.getActive(), botExecutor.getQueued(), botExecutor.getCompleted(),
+                               botExecutor.getRejected(), botExecutor.getAverageWaitMs(), botExecutor.getMaxWaitMs(),
+                               botExecutor.getAverageRunMs(), ponderHits, ponderMisses,
+                               lambdaCircuit, lambdaMoves, lambdaHedgedMoves, lambdaFallbackMoves);
+    }
+
+    /**
+     * Answer a request with the move pondered for it, the cached move or a new calculation,
+     * then start pondering the human's replies to the bot's move
+     *
+     * @param ponder Whether the request's game is pondered
+     */
+    private CompletableFuture<BotMoveResponseDto> respond(BotMoveRequestDto request,
+                                                         Supplier<CompletableFuture<BotMoveResponseDto>> calculate,
+                                                         boolean ponder) {
+        boolean pondered = ponder && ponderer != null;
+
+        // Stops pondering for this game, and returns its move if the human played a predicted reply
+        CompletableFuture<BotMoveResponseDto> response = pondered ? ponderer.take(request) : null;
+        if (response == null) {
+            response = cached(request, calculate);
+        }
+
+        if (pondered) {
+            response.thenAccept(move -> {
+                // Leave the CPU to real requests while they are queuing
+                if (botExecutor.getQueued() == 0) {
+                    ponderer.ponder(request, move);
+                }
+            });
+        }
+        return response;
+    }
+
+    /**
+     * Return the cached move for the request's position right away, or start calculating it
+     * and cache it once calculated
+     */
+    private CompletableFuture<BotMoveResponseDto> cached(BotMoveRequestDto request,
+                                                        Supplier<CompletableFuture<BotMoveResponseDto>> calculate) {
+        BotMoveCache.Key key = cacheKey(request);
+        BotMoveResponseDto cachedResponse = cachedMove(key, request);
+        if (cachedResponse != null) {
+            return CompletableFuture.completedFuture(cachedResponse);
+        }
+
+        return calculate.get()
+                .thenApply(response -> {
+                    cacheMove(key, request, response);
+                    return response;
+                });
+    }
+
+    /**
+     * Cache key of a request, or null if its move must not be cached
+     */
+    private BotMoveCache.Key cacheKey(BotMoveRequestDto request) {
+        // A move that avoids repeating a position of this game is only right for this game
+        if (cache == null || BotAlgorithm.historyMatters(request)) {
+            return null;
+        }
+
+        long timeLimitMs = request.getTimeLimitMs() != null && request.getTimeLimitMs() > 0 ? request.getTimeLimitMs() : 0;
+        return new BotMoveCache.Key(BotAlgorithm.positionHash(request), request.getDifficulty(), timeLimitMs);
+    }
+
+    /**
+     * Cached move for a request. A position and its colour-flipped twin share one entry,
+     * stored as seen in the canonical form.
+     *
+     * @return The move, or null if it is not cached (or the key is null)
+     */
+    private BotMoveResponseDto cachedMove(BotMoveCache.Key key, BotMoveRequestDto request) {
+        if (key == null) {
+            return null;
+        }
+        BotMoveResponseDto cachedResponse = cache.get(key);
+        return cachedResponse != null ? Symmetry.restore(cachedResponse, request) : null;
+    }
+
+    private void cacheMove(BotMoveCache.Key key, BotMoveRequestDto request, BotMoveResponseDto response) {
+        // Book and tablebase moves (depth 0) cost nothing, and book moves are picked at random on purpose
+        if (key != null && (response.getDepth() == null || response.getDepth() > 0)) {
+            cache.put(key, Symmetry.restore(response, request));
+        }
+    }
+
+    private CompletableFuture<BotMoveResponseDto> callLambda(BotMoveRequestDto request) {
+        // No Lambda configured: calculate locally
+        if (lambdaClient == null) {
+            return botExecutor.submit(() -> botAlgorithm.calculateMove(request));
+        }
+        return lambdaClient.calculateMove(request, stop -> botAlgorithm.calculateMove(request, stop));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,70 @@
+package org.onlinecheckers.apiserver.services;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Single writer of one game: messages sent to the mailbox run one at a time, in the
+ * order they were sent, so they never need a lock on the game.
+ *
+ * Senders only add the message to a lock-free queue. The first message sent to an
+ * idle mailbox starts a task on the executor (a virtual thread) that runs the queued
+ * messages and ends when the queue is empty, so idle games hold no thread and the
+ * mailboxes of different games run in parallel.
+ */
+public class GameMailbox {
+
+    private final Executor executor;
+    private final Queue<Runnable> messages = new ConcurrentLinkedQueue<>();
+
+    // A task is running (or starting) the queued messages
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    public GameMailbox(Executor executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * Queue a message
+     *
+     * @return The result of the message, completed when the message has run
+     */
+    public <T> CompletableFuture<T> send(Supplier<T> message) {
+        CompletableFuture<T> reply = new CompletableFuture<>();
+        messages.add(() -> {
+            try {
+                reply.complete(message.get());
+            } catch (Throwable e) {
+                reply.completeExceptionally(e);
+            }
+        });
+
+        if (running.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                // Shutting down: run the queued messages here, so no sender waits forever
+                drain();
+            }
+        }
+        return reply;
+    }
+
+    private void drain() {
+        do {
+            Runnable message;
+            while ((message = messages.poll()) != null) {
+                message.run();
+            }
+            running.set(false);
+
+            // A message queued after the last poll but before the flag was cleared
+            // found the mailbox running: run it now unless another task started
+        } while (!messages.isEmpty() && running.compareAndSet(false, true));
+    }
+}
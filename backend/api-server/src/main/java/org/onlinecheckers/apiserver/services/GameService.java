@@ -8,7 +8,6 @@ import org.onlinecheckers.apiserver.exceptions.SessionGameNotFoundException;
 
 import org.springframework.stereotype.Service;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class GameService {
@@ -19,6 +18,9 @@ public class GameService {
     @Autowired
     GameRepository gameDao;
 
+    @Autowired
+    GameStateStore gameStateStore;
+
     public Game createGame(GameDto gameDto) {
         Game g = new Game();
         
@@ -36,16 +38,12 @@ public class GameService {
         return gameDao.save(g);
     }
 
-    @Transactional(readOnly = true)
+    /**
+     * Current state of a game, from memory (see GameStateStore)
+     *
+     * @throws SessionGameNotFoundException If the game doesn't exist
+     */
     public GameDto getGame(String id) {
-        Game g = gameDao.findById(id).orElse(null);
-        if (g == null) {
-            throw new SessionGameNotFoundException("Game with id " + id + " not found");
-        }
-        
-        // Force loading of players collection before mapping
-        g.getPlayers().size(); // This triggers lazy loading while session is still open
-        
-        return gameMapper.toDto(g);
+        return gameMapper.toDto(gameStateStore.get(id));
     }
 }
\ No newline at end of file
@@ -0,0 +1,385 @@
+package org.onlinecheckers.apiserver.services;
+
+import org.onlinecheckers.apiserver.exceptions.SessionGameNotFoundException;
+import org.onlinecheckers.apiserver.model.entities.Game;
+import org.onlinecheckers.apiserver.repositories.GameRepository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Authoritative in-memory state of the active games, so moves, chat and broadcasts
+ * don't reload the game from the database on every message.
+ *
+ * A game is loaded once (with all its collections) on first access. Published game
+ * states are never modified: an update copies the current state, applies the change
+ * to the copy and publishes it, so readers can use a state without locking and a
+ * change that fails halfway (an invalid move) leaves the game untouched.
+ *
+ * Each game has a GameMailbox that runs its updates one at a time on virtual threads,
+ * in the order they arrive: two moves sent at once are validated one after the other
+ * against the latest state, without locks, while different games update in parallel.
+ *
+ * Changes are written behind: a changed game is marked dirty, and a single writer
+ * thread saves the latest state of all dirty games together every flush interval, in
+ * one transaction (JDBC batched with hibernate.jdbc.batch_size). However many moves and
+ * messages a game gets meanwhile, it is written once per interval. A game that ends is
+ * saved right away, and everything still dirty is saved on shutdown, so only a crash
+ * can lose changes, at most the last flush interval of them. Games idle for longer than
+ * the idle timeout are dropped from memory once saved. If the batch fails, its games are
+ * saved one at a time, so one game that cannot be saved doesn't hold back the others;
+ * that game is retried at the next flushes and dropped from memory after MAX_SAVE_ATTEMPTS.
+ */
+@Service
+public class GameStateStore {
+
+    // Flushes a game may fail in a row before it is dropped from memory with its unsaved changes
+    static final int MAX_SAVE_ATTEMPTS = 5;
+
+    // How long a deleted game is refused, enough for the delete to commit
+    private static final long DELETED_MS = TimeUnit.MINUTES.toMillis(1);
+
+    @Autowired
+    private GameRepository gameRepository;
+
+    @Value("${game.store.idle-minutes:30}")
+    private long idleMinutes;
+
+    // Longest time a change stays unsaved, and so the changes a crash can lose
+    @Value("${game.store.flush-interval-ms:2000}")
+    private long flushIntervalMs;
+
+    private final Map<String, Entry> games = new ConcurrentHashMap<>();
+
+    // Games with unsaved changes, saved by the next flush
+    private final Set<Entry> pending = ConcurrentHashMap.newKeySet();
+
+    // Ids of the games being deleted, with the time they were removed: they are not loaded again
+    private final Map<String, Long> deleted = new ConcurrentHashMap<>();
+
+    // Saves the games and drops the idle ones
+    private ScheduledExecutorService writer;
+
+    // Runs the game mailboxes, one virtual thread per busy game
+    private ExecutorService mailboxes;
+
+    // Held by a flush while it saves, so a deleted game is never written back after its delete
+    private final Object flushLock = new Object();
+
+    /**
+     * One game in memory
+     */
+    private final class Entry {
+        final String id;
+        final GameMailbox mailbox = new GameMailbox(mailboxes);
+
+        // Published state, replaced (never modified) by the mailbox
+        volatile Game game;
+
+        // Last state saved, set by the writer: the game is dirty while it is not the published one
+        volatile Game saved;
+
+        volatile long lastAccessMs = System.currentTimeMillis();
+
+        // Only used by the mailbox: dropped from the store, updates must load the game again
+        boolean evicted = false;
+
+        // Set under flushLock when the game is deleted: flushes must not save it anymore
+        boolean deleted = false;
+
+        // Only used by flushes: saves failed in a row
+        int failedSaves = 0;
+
+        Entry(Game game) {
+            this.id = game.getId();
+            this.game = game;
+            this.saved = game;
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        mailboxes = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("game-mailbox-", 0).factory());
+        writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "game-store-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        writer.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        writer.scheduleWithFixedDelay(this::evictIdle, 1, 1, TimeUnit.MINUTES);
+    }
+
+    @PreDestroy
+    public void destroy() throws InterruptedException {
+        // Let the updates already sent finish before the last flush
+        mailboxes.shutdown();
+        if (!mailboxes.awaitTermination(30, TimeUnit.SECONDS)) {
+            System.err.println("Game store: updates still running at shutdown");
+        }
+
+        writer.shutdown();
+        if (!writer.awaitTermination(30, TimeUnit.SECONDS)) {
+            System.err.println("Game store: writer still busy at shutdown");
+        }
+
+        // Save what changed since the last flush, so clean shutdowns don't lose changes
+        flush();
+        if (!pending.isEmpty()) {
+            System.err.println("Game store: " + pending.size() + " games not saved at shutdown");
+        }
+    }
+
+    /**
+     * Current state of a game, to read only
+     *
+     * @throws SessionGameNotFoundException If the game doesn't exist
+     */
+    public Game get(String gameId) {
+        Entry entry = entry(gameId);
+        entry.lastAccessMs = System.currentTimeMillis();
+        return entry.game;
+    }
+
+    /**
+     * Change a game and mark it for saving. The change runs in the game's mailbox, after
+     * the changes sent before it, and is applied to a copy of the current state,
+     * published only if the change completes. A change that ends the game is saved right
+     * away, without waiting for the next flush.
+     *
+     * @param mutation Change to apply; exceptions it throws propagate and discard the change
+     * @return The new state, to read only
+     * @throws SessionGameNotFoundException If the game doesn't exist
+     */
+    public Game update(String gameId, Consumer<Game> mutation) {
+        while (true) {
+            Entry entry = entry(gameId);
+            Game updated = await(entry.mailbox.send(() -> {
+                if (entry.evicted) {
+                    return null;
+                }
+
+                Game previous = entry.game;
+                Game next = copy(previous);
+                mutation.accept(next);
+                entry.game = next;
+                entry.lastAccessMs = System.currentTimeMillis();
+                pending.add(entry);
+
+                if (next.isPartitaTerminata() && !previous.isPartitaTerminata()) {
+                    try {
+                        writer.execute(this::flush);
+                    } catch (RejectedExecutionException e) {
+                        // Shutting down: the change is already applied, and the last flush saves it
+                    }
+                }
+                return next;
+            }));
+
+            // Dropped from memory before the change ran: load the game again
+            if (updated != null) {
+                return updated;
+            }
+        }
+    }
+
+    /**
+     * Drop a game from memory without saving it (the game is deleted). Returns once no
+     * flush can save the game anymore, so the caller can delete it from the database.
+     * Until then, and for a while after, the game is not loaded again: reading or changing
+     * it fails as if it didn't exist.
+     */
+    public void remove(String gameId) {
+        deleted.put(gameId, System.currentTimeMillis());
+
+        // Waits for a load of the game already in progress
+        Entry entry = games.remove(gameId);
+        if (entry != null) {
+            await(entry.mailbox.send(() -> {
+                entry.evicted = true;
+                pending.remove(entry);
+                return null;
+            }));
+
+            // Waits for a flush that took the game before it was removed
+            synchronized (flushLock) {
+                entry.deleted = true;
+            }
+        }
+    }
+
+    private Entry entry(String gameId) {
+        return games.computeIfAbsent(gameId, id -> {
+            if (deleted.containsKey(id)) {
+                throw new SessionGameNotFoundException("Game with id " + id + " not found");
+            }
+            return new Entry(
+                gameRepository.findByIdWithAllCollections(id)
+                    .orElseThrow(() -> new SessionGameNotFoundException("Game with id " + id + " not found"))
+            );
+        });
+    }
+
+    /**
+     * Save the latest state of every dirty game in one batch, on the writer thread
+     */
+    private void flush() {
+        synchronized (flushLock) {
+            List<Entry> entries = new ArrayList<>();
+            List<Game> states = new ArrayList<>();
+            for (Entry entry : pending) {
+                // Removed before reading the state: a later change adds the entry again
+                pending.remove(entry);
+                Game state = entry.game;
+                if (!entry.deleted && state != entry.saved) {
+                    entries.add(entry);
+                    states.add(state);
+                }
+            }
+            if (states.isEmpty()) {
+                return;
+            }
+
+            try {
+                gameRepository.saveAll(states);
+                for (int i = 0; i < entries.size(); i++) {
+                    saved(entries.get(i), states.get(i));
+                }
+            } catch (RuntimeException e) {
+                // The whole batch was rolled back: find the games that cannot be saved
+                System.err.println("Game store: saving " + states.size() + " games failed, saving them one at a time: " + e.getMessage());
+                for (int i = 0; i < entries.size(); i++) {
+                    try {
+                        gameRepository.save(states.get(i));
+                        saved(entries.get(i), states.get(i));
+                    } catch (RuntimeException gameError) {
+                        saveFailed(entries.get(i), gameError);
+                    }
+                }
+            }
+        }
+    }
+
+    private static void saved(Entry entry, Game state) {
+        entry.saved = state;
+        entry.failedSaves = 0;
+    }
+
+    /**
+     * Retry a game at the next flush, with any change made meanwhile, or drop it from
+     * memory once it failed MAX_SAVE_ATTEMPTS flushes in a row
+     */
+    private void saveFailed(Entry entry, RuntimeException error) {
+        if (games.get(entry.id) != entry) {
+            return;
+        }
+
+        entry.failedSaves++;
+        if (entry.failedSaves < MAX_SAVE_ATTEMPTS) {
+            System.err.println("Game store: saving game " + entry.id + " failed, retrying at the next flush: " + error.getMessage());
+            pending.add(entry);
+            return;
+        }
+
+        System.err.println("Game store: saving game " + entry.id + " failed " + entry.failedSaves
+                           + " times, dropping its unsaved changes: " + error.getMessage());
+        entry.mailbox.send(() -> {
+            if (!entry.evicted) {
+                entry.evicted = true;
+                games.remove(entry.id, entry);
+                pending.remove(entry);
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Drop the saved games nobody accessed for the idle timeout, and forget old deletes
+     */
+    private void evictIdle() {
+        // Deleted long enough ago for the delete to be committed: loading finds nothing anyway
+        long deletedBefore = System.currentTimeMillis() - DELETED_MS;
+        deleted.values().removeIf(removedAt -> removedAt < deletedBefore);
+
+        long idleSince = System.currentTimeMillis() - TimeUnit.MINUTES.toMillis(idleMinutes);
+        for (Entry entry : games.values()) {
+            if (entry.lastAccessMs >= idleSince) {
+                continue;
+            }
+            // In the mailbox, so no update runs between the check and the eviction
+            entry.mailbox.send(() -> {
+                if (!entry.evicted && entry.game == entry.saved && entry.lastAccessMs < idleSince) {
+                    entry.evicted = true;
+                    games.remove(entry.id, entry);
+                }
+                return null;
+            });
+        }
+    }
+
+    /**
+     * Result of a message sent to a mailbox, with the exception it threw if any
+     */
+    private static <T> T await(CompletableFuture<T> reply) {
+        try {
+            return reply.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Copy of a game state that can be changed without affecting the original
+     */
+    private static Game copy(Game game) {
+        Game copy = new Game();
+        copy.setId(game.getId());
+        copy.setCreatedAt(game.getCreatedAt());
+        copy.setUpdatedAt(game.getUpdatedAt());
+
+        String[][] board = new String[game.getBoard().length][];
+        for (int row = 0; row < board.length; row++) {
+            board[row] = game.getBoard()[row].clone();
+        }
+        copy.setBoard(board);
+        copy.setTurno(game.getTurno());
+        copy.setPedineW(game.getPedineW());
+        copy.setPedineB(game.getPedineB());
+        copy.setDamaW(game.getDamaW());
+        copy.setDamaB(game.getDamaB());
+        copy.setPartitaTerminata(game.isPartitaTerminata());
+        copy.setVincitore(game.getVincitore());
+
+        copy.setPlayers(new ArrayList<>(game.getPlayers()));
+        copy.setChat(game.getChat());
+        copy.setCronologiaMosse(new ArrayList<>(game.getCronologiaMosse()));
+        copy.setLastMultiCapturePath(new ArrayList<>(game.getLastMultiCapturePath()));
+        copy.setAuthorizedSessions(new HashSet<>(game.getAuthorizedSessions()));
+        copy.setSpectatorSessions(new HashSet<>(game.getSpectatorSessions()));
+        return copy;
+    }
+}
@@ -0,0 +1,394 @@
+package org.onlinecheckers.apiserver.services;
+
+import org.onlinecheckers.apiserver.exceptions.BotBusyException;
+import org.onlinecheckers.bot.dto.BotMoveRequestDto;
+import org.onlinecheckers.bot.dto.BotMoveResponseDto;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Client for the bot Lambda, with a local fallback.
+ *
+ * Requests are sent asynchronously with connect and read timeouts, and no thread
+ * waits for their answers, so slow Lambda calls hold neither request nor bot threads.
+ * When the Lambda takes longer than usual (a percentile of its recent latencies
+ * for the same difficulty and time budget), the move is also calculated locally,
+ * on the bounded bot executor, and whichever answer comes first is used; the
+ * slower side is stopped. While the Lambda keeps failing, a
+ * circuit breaker skips it and the local calculation is used directly.
+ * Several positions can also be sent in one call (calculateMoves).
+ */
+public class LambdaBotClient implements AutoCloseable {
+
+    // Recent latencies kept per difficulty and time budget
+    private static final int LATENCY_SAMPLES = 100;
+
+    // Samples needed before the percentile replaces the initial hedge delay
+    private static final int MIN_LATENCY_SAMPLES = 10;
+
+    private record LatencyKey(int difficulty, long timeLimitMs) {}
+
+    private final URI endpoint;
+    private final URI batchEndpoint;
+    private final Duration readTimeout;
+    private final double hedgePercentile;
+    private final long hedgeInitialDelayMs;
+    private final CircuitBreaker circuitBreaker;
+
+    // Runs the hedged local calculations, within the limits of the other bot calculations
+    private final BotExecutor hedgeExecutor;
+
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private final Map<LatencyKey, LatencyWindow> latencies = new ConcurrentHashMap<>();
+
+    private final AtomicLong lambdaMoves = new AtomicLong();
+    private final AtomicLong hedgedMoves = new AtomicLong();
+    private final AtomicLong fallbackMoves = new AtomicLong();
+
+    /**
+     * @param lambdaUrl           Base URL of the Lambda, "/bot/move" and "/bot/moves" are appended
+     * @param connectTimeoutMs    Time to open the connection
+     * @param readTimeoutMs       Time to get the response once the request is sent
+     * @param hedgePercentile     Latency percentile (0-100) after which the move is also calculated locally
+     * @param hedgeInitialDelayMs Hedge delay used until enough latencies have been seen
+     * @param circuitBreaker      Breaker fed with the outcome of every Lambda call
+     * @param hedgeExecutor       Executor of the hedged local calculations
+     */
+    public LambdaBotClient(String lambdaUrl, long connectTimeoutMs, long readTimeoutMs,
+                           double hedgePercentile, long hedgeInitialDelayMs, CircuitBreaker circuitBreaker,
+                           BotExecutor hedgeExecutor) {
+        this.endpoint = URI.create(lambdaUrl + "/bot/move");
+        this.batchEndpoint = URI.create(lambdaUrl + "/bot/moves");
+        this.readTimeout = Duration.ofMillis(readTimeoutMs);
+        this.hedgePercentile = hedgePercentile;
+        this.hedgeInitialDelayMs = hedgeInitialDelayMs;
+        this.circuitBreaker = circuitBreaker;
+        this.hedgeExecutor = hedgeExecutor;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(connectTimeoutMs))
+                .build();
+    }
+
+    /**
+     * Calculate a move with the Lambda, falling back to the given local calculation
+     * when the Lambda fails, is too slow or is skipped by the circuit breaker.
+     * No thread waits for the Lambda: only the local calculation runs on the executor.
+     *
+     * @param fallback Local calculation, which must stop early once its stop flag is set
+     * @return The move, failing with BotBusyException if the Lambda fails and the executor is full
+     * @throws BotBusyException If the circuit breaker skips the Lambda and the executor is full
+     */
+    public CompletableFuture<BotMoveResponseDto> calculateMove(BotMoveRequestDto request,
+                                                               Function<AtomicBoolean, BotMoveResponseDto> fallback) {
+        if (!circuitBreaker.allowRequest()) {
+            CompletableFuture<BotMoveResponseDto> local = hedgeExecutor.submit(() -> fallback.apply(new AtomicBoolean()));
+            fallbackMoves.incrementAndGet();
+            return local;
+        }
+
+        LatencyKey key = latencyKey(request);
+        long start = System.nanoTime();
+        CompletableFuture<HttpResponse<String>> exchange = post(endpoint, request, readTimeout);
+        HedgedMove move = new HedgedMove(exchange, fallback);
+
+        exchange.thenApply(LambdaBotClient::body)
+                .thenApply(this::parseMove)
+                .whenComplete((response, error) -> {
+                    report(error);
+                    if (error == null) {
+                        latencies.computeIfAbsent(key, k -> new LatencyWindow())
+                                 .add((System.nanoTime() - start) / 1_000_000);
+                    }
+                })
+                .whenComplete(move::lambdaDone);
+
+        // Slower than usual (cold start, throttling): race a local calculation against it
+        CompletableFuture.delayedExecutor(hedgeDelayMs(key), TimeUnit.MILLISECONDS)
+                         .execute(() -> move.startLocal(true));
+        return move.result;
+    }
+
+    /**
+     * Calculate the moves of several positions with one Lambda call (see the Lambda's /bot/moves),
+     * falling back to the given local calculation when it fails or the circuit breaker skips it.
+     * Batches are not hedged: their latency depends on their size. The read timeout grows with
+     * the number of positions, since the Lambda may have to search them one after the other.
+     * No thread waits for the Lambda meanwhile.
+     *
+     * @param fallback Starts the local calculation of the moves
+     * @return The moves, in the order of the requests
+     */
+    public CompletableFuture<List<BotMoveResponseDto>> calculateMoves(List<BotMoveRequestDto> requests,
+                                                                      Supplier<CompletableFuture<List<BotMoveResponseDto>>> fallback) {
+        if (!circuitBreaker.allowRequest()) {
+            fallbackMoves.addAndGet(requests.size());
+            return fallback.get();
+        }
+
+        return post(batchEndpoint, requests, readTimeout.multipliedBy(Math.max(1, requests.size())))
+                .thenApply(LambdaBotClient::body)
+                .thenApply(body -> parseMoves(body, requests.size()))
+                .whenComplete((responses, error) -> report(error))
+                .thenApply(responses -> {
+                    lambdaMoves.addAndGet(requests.size());
+                    return responses;
+                })
+                .exceptionallyCompose(error -> {
+                    fallbackMoves.addAndGet(requests.size());
+                    return fallback.get();
+                });
+    }
+
+    /**
+     * Post a JSON body to the Lambda
+     *
+     * @return The exchange, failing on connection errors and timeouts; cancelling it aborts the request
+     */
+    private CompletableFuture<HttpResponse<String>> post(URI uri, Object body, Duration timeout) {
+        try {
+            HttpRequest httpRequest = HttpRequest.newBuilder(uri)
+                    .timeout(timeout)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body)))
+                    .build();
+
+            return httpClient.sendAsync(httpRequest, HttpResponse.BodyHandlers.ofString());
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Body of a Lambda response, failing on non-2xx statuses
+     */
+    private static String body(HttpResponse<String> response) {
+        if (response.statusCode() / 100 != 2) {
+            throw new IllegalStateException("Lambda returned HTTP " + response.statusCode());
+        }
+        return response.body();
+    }
+
+    /**
+     * Feed the outcome of a Lambda call to the circuit breaker
+     */
+    private void report(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (error == null) {
+            circuitBreaker.recordSuccess();
+        } else if (cause instanceof CancellationException) {
+            // Aborted because the local calculation answered first: says nothing about the Lambda
+            circuitBreaker.recordCancelled();
+        } else {
+            circuitBreaker.recordFailure();
+            System.err.println("Lambda call failed: " + cause);
+        }
+    }
+
+    private BotMoveResponseDto parseMove(String body) {
+        BotMoveResponseDto move;
+        try {
+            move = objectMapper.readValue(body, BotMoveResponseDto.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        if (move == null || move.getFrom() == null) {
+            throw new IllegalStateException("Lambda returned no move");
+        }
+        return move;
+    }
+
+    private List<BotMoveResponseDto> parseMoves(String body, int expected) {
+        List<BotMoveResponseDto> moves;
+        try {
+            moves = objectMapper.readValue(body, new TypeReference<List<BotMoveResponseDto>>() {});
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        if (moves == null || moves.size() != expected || moves.stream().anyMatch(move -> move == null || move.getFrom() == null)) {
+            throw new IllegalStateException("Lambda returned an incomplete batch");
+        }
+        return moves;
+    }
+
+    /**
+     * Time to wait for the Lambda before also calculating the move locally
+     */
+    private long hedgeDelayMs(LatencyKey key) {
+        LatencyWindow window = latencies.get(key);
+        if (window == null || window.size() < MIN_LATENCY_SAMPLES) {
+            return hedgeInitialDelayMs;
+        }
+        return window.percentile(hedgePercentile);
+    }
+
+    private static LatencyKey latencyKey(BotMoveRequestDto request) {
+        long timeLimitMs = request.getTimeLimitMs() != null && request.getTimeLimitMs() > 0 ? request.getTimeLimitMs() : 0;
+        return new LatencyKey(request.getDifficulty(), timeLimitMs);
+    }
+
+    // Metrics
+    public CircuitBreaker.State getCircuitState() {
+        return circuitBreaker.getState();
+    }
+
+    public long getLambdaMoves() {
+        return lambdaMoves.get();
+    }
+
+    public long getHedgedMoves() {
+        return hedgedMoves.get();
+    }
+
+    public long getFallbackMoves() {
+        return fallbackMoves.get();
+    }
+
+    @Override
+    public void close() {
+        httpClient.close();
+    }
+
+    /**
+     * One move asked to the Lambda, raced against a local calculation once the hedge delay
+     * passes or the Lambda fails. The first answer completes the result and stops the other
+     * side: the local search through its stop flag, the Lambda by aborting its request.
+     */
+    private class HedgedMove {
+
+        final CompletableFuture<BotMoveResponseDto> result = new CompletableFuture<>();
+
+        private final CompletableFuture<HttpResponse<String>> exchange;
+        private final Function<AtomicBoolean, BotMoveResponseDto> fallback;
+        private final AtomicBoolean stop = new AtomicBoolean();
+
+        private boolean localStarted = false;
+        private Throwable lambdaError = null;
+        private Throwable localError = null;
+
+        HedgedMove(CompletableFuture<HttpResponse<String>> exchange, Function<AtomicBoolean, BotMoveResponseDto> fallback) {
+            this.exchange = exchange;
+            this.fallback = fallback;
+        }
+
+        synchronized void lambdaDone(BotMoveResponseDto response, Throwable error) {
+            if (result.isDone()) {
+                return;
+            }
+            if (error == null) {
+                // Stop the local search, or keep it from starting if it is still queued
+                stop.set(true);
+                lambdaMoves.incrementAndGet();
+                result.complete(response);
+                return;
+            }
+
+            lambdaError = error;
+            if (!localStarted) {
+                startLocal(false);
+            } else if (localError != null) {
+                result.completeExceptionally(localError);
+            }
+        }
+
+        /**
+         * Queue the local calculation, unless it already runs or a result is known
+         *
+         * @param hedged Started by the hedge delay (the Lambda is still running) rather than a failed Lambda
+         */
+        synchronized void startLocal(boolean hedged) {
+            if (localStarted || result.isDone()) {
+                return;
+            }
+
+            CompletableFuture<BotMoveResponseDto> local;
+            try {
+                local = hedgeExecutor.submit(() -> stop.get() ? null : fallback.apply(stop));
+            } catch (BotBusyException e) {
+                if (!hedged) {
+                    result.completeExceptionally(e);
+                }
+                // No room for a second calculation: wait for the Lambda alone
+                return;
+            }
+
+            localStarted = true;
+            if (hedged) {
+                hedgedMoves.incrementAndGet();
+            } else {
+                fallbackMoves.incrementAndGet();
+            }
+            local.whenComplete(this::localDone);
+        }
+
+        synchronized void localDone(BotMoveResponseDto response, Throwable error) {
+            if (result.isDone()) {
+                return;
+            }
+            if (error == null) {
+                exchange.cancel(true);
+                result.complete(response);
+                return;
+            }
+
+            // Still up to the Lambda, unless it failed too
+            localError = error;
+            if (lambdaError != null) {
+                result.completeExceptionally(error);
+            }
+        }
+    }
+
+    /**
+     * Ring buffer of the latest successful Lambda latencies
+     */
+    private static class LatencyWindow {
+
+        private final long[] samples = new long[LATENCY_SAMPLES];
+        private int count = 0;
+        private int next = 0;
+
+        synchronized void add(long latencyMs) {
+            samples[next] = latencyMs;
+            next = (next + 1) % samples.length;
+            count = Math.min(count + 1, samples.length);
+        }
+
+        synchronized int size() {
+            return count;
+        }
+
+        synchronized long percentile(double percentile) {
+            long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            int index = (int) Math.ceil(percentile / 100.0 * count) - 1;
+            return sorted[Math.max(0, Math.min(index, count - 1))];
+        }
+    }
+}
@@ -3,27 +3,33 @@ package org.onlinecheckers.apiserver.services;
 import org.onlinecheckers.apiserver.model.dtos.MoveDto;
 import org.onlinecheckers.apiserver.model.entities.Game;
 import org.onlinecheckers.apiserver.model.entities.enums.Team;
-import org.onlinecheckers.apiserver.repositories.GameRepository;
 import org.onlinecheckers.apiserver.exceptions.InvalidMoveException;
 import org.onlinecheckers.apiserver.exceptions.SessionGameNotFoundException;
 
 import org.springframework.stereotype.Service;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.util.*;
 
 @Service
-@Transactional
 public class MoveService {
     @Autowired
-    private GameRepository gameDao;
+    private GameStateStore gameStateStore;
 
+    /**
+     * Validate and play a move on the in-memory game state (saved behind, see GameStateStore).
+     * Moves of the same game are validated one at a time, each against the state the previous
+     * one left, and an invalid move leaves the game unchanged.
+     *
+     * @return The game after the move, to read only
+     * @throws SessionGameNotFoundException If the game doesn't exist
+     * @throws InvalidMoveException If the move is not valid
+     */
     public Game makeMove(String gameId, MoveDto dto) {
+        return gameStateStore.update(gameId, game -> applyMove(game, dto));
+    }
 
-        // Load game
-        Game game = gameDao.findById(gameId)
-                .orElseThrow(() -> new SessionGameNotFoundException(gameId));
+    private void applyMove(Game game, MoveDto dto) {
 
         // Player validation
         if (dto.getPlayer() == null)
@@ -289,8 +295,6 @@ public class MoveService {
             // Clear the path for normal moves or single captures
             game.setLastMultiCapturePath(new ArrayList<>());
         }
-
-        return gameDao.save(game);
     }
 
     private void validateCoordinates(int r, int c) {
@@ -0,0 +1,77 @@
+package org.onlinecheckers.apiserver.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Mailbox ordering and its fallback when the executor is shut down
+ */
+class GameMailboxTest {
+
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().factory());
+
+    @AfterEach
+    void stopExecutor() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void runsMessagesOneAtATimeInOrder() {
+        GameMailbox mailbox = new GameMailbox(executor);
+        AtomicInteger running = new AtomicInteger();
+        List<Integer> order = new ArrayList<>();
+
+        List<CompletableFuture<Integer>> replies = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            int message = i;
+            replies.add(mailbox.send(() -> {
+                assertEquals(1, running.incrementAndGet());
+                order.add(message);
+                running.decrementAndGet();
+                return message;
+            }));
+        }
+
+        for (int i = 0; i < replies.size(); i++) {
+            assertEquals(i, replies.get(i).orTimeout(5, TimeUnit.SECONDS).join());
+        }
+        for (int i = 0; i < order.size(); i++) {
+            assertEquals(i, order.get(i));
+        }
+    }
+
+    @Test
+    void completesReplyWithException() {
+        GameMailbox mailbox = new GameMailbox(executor);
+
+        CompletableFuture<Object> reply = mailbox.send(() -> {
+            throw new IllegalStateException("Invalid move");
+        });
+        CompletableFuture<String> next = mailbox.send(() -> "next");
+
+        assertTrue(reply.handle((result, e) -> e instanceof IllegalStateException).join());
+        assertEquals("next", next.orTimeout(5, TimeUnit.SECONDS).join());
+    }
+
+    @Test
+    void runsMessagesOnSenderAfterShutdown() {
+        executor.shutdown();
+        GameMailbox mailbox = new GameMailbox(executor);
+
+        CompletableFuture<Thread> reply = mailbox.send(Thread::currentThread);
+
+        assertTrue(reply.isDone());
+        assertEquals(Thread.currentThread(), reply.join());
+    }
+}
@@ -0,0 +1,347 @@
+package org.onlinecheckers.apiserver.services;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.onlinecheckers.apiserver.exceptions.SessionGameNotFoundException;
+import org.onlinecheckers.apiserver.model.entities.Game;
+import org.onlinecheckers.apiserver.model.entities.enums.Team;
+import org.onlinecheckers.apiserver.repositories.GameRepository;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Game store against an in-memory repository; flushes are triggered by the tests
+ */
+class GameStateStoreTest {
+
+    // Games in the "database"
+    private final Map<String, Game> database = new ConcurrentHashMap<>();
+
+    // Games passed to each saveAll call
+    private final List<List<Game>> batches = new CopyOnWriteArrayList<>();
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    // Repository behaviour, changed by the tests
+    private volatile boolean saveFails = false;
+    // Id of a game the database refuses to save, failing any batch it is in
+    private volatile String unsavable = null;
+    private volatile CountDownLatch saveStarted = null;
+    private volatile CountDownLatch releaseSave = null;
+
+    private GameStateStore store;
+    private final ExecutorService clients = Executors.newFixedThreadPool(8);
+
+    @BeforeEach
+    void createStore() {
+        database.put("g1", game("g1"));
+        database.put("g2", game("g2"));
+        database.put("g3", game("g3"));
+
+        store = new GameStateStore();
+        ReflectionTestUtils.setField(store, "gameRepository", repository());
+        ReflectionTestUtils.setField(store, "idleMinutes", 0L);
+        // Never reached by the tests, which flush themselves
+        ReflectionTestUtils.setField(store, "flushIntervalMs", 3_600_000L);
+        store.init();
+    }
+
+    @AfterEach
+    void stopStore() throws InterruptedException {
+        if (releaseSave != null) {
+            releaseSave.countDown();
+        }
+        clients.shutdownNow();
+        store.destroy();
+    }
+
+    @Test
+    void conflictingMovesRunOneAfterTheOther() throws Exception {
+        // Both players try to move the same piece: only the first move finds it
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Game>> moves = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            moves.add(clients.submit(() -> {
+                start.await();
+                return store.update("g1", game -> {
+                    if (!"w".equals(game.getBoard()[5][2])) {
+                        throw new IllegalStateException("No piece on 52");
+                    }
+                    game.getBoard()[5][2] = "";
+                    game.getBoard()[4][3] = "w";
+                    game.setTurno(Team.BLACK);
+                });
+            }));
+        }
+        start.countDown();
+
+        int applied = 0;
+        int rejected = 0;
+        for (Future<Game> move : moves) {
+            try {
+                move.get(5, TimeUnit.SECONDS);
+                applied++;
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof IllegalStateException);
+                rejected++;
+            }
+        }
+
+        assertEquals(1, applied);
+        assertEquals(1, rejected);
+        assertEquals("w", store.get("g1").getBoard()[4][3]);
+        assertEquals(Team.BLACK, store.get("g1").getTurno());
+    }
+
+    @Test
+    void failedChangeLeavesGameUntouched() {
+        Game before = store.get("g1");
+
+        assertThrows(IllegalStateException.class, () -> store.update("g1", game -> {
+            game.getBoard()[5][2] = "";
+            throw new IllegalStateException("Invalid move");
+        }));
+
+        assertTrue(before == store.get("g1"));
+        assertEquals("w", store.get("g1").getBoard()[5][2]);
+    }
+
+    @Test
+    void keepsEveryConcurrentChatMessage() throws Exception {
+        List<Future<Game>> messages = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            String message = "message " + i + "\n";
+            messages.add(clients.submit(() -> store.update("g1", game -> game.setChat(game.getChat() + message))));
+        }
+        for (Future<Game> message : messages) {
+            message.get(5, TimeUnit.SECONDS);
+        }
+
+        String chat = store.get("g1").getChat();
+        for (int i = 0; i < 200; i++) {
+            assertTrue(chat.contains("message " + i + "\n"));
+        }
+        assertEquals(200, chat.lines().count());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void savesDirtyGamesTogether() {
+        for (int i = 0; i < 10; i++) {
+            int move = i;
+            store.update("g1", game -> game.setChat(game.getChat() + move));
+        }
+        store.update("g2", game -> game.setChat("hello"));
+        store.get("g3");
+
+        flush();
+
+        // One batch with the latest state of the changed games only
+        assertEquals(1, batches.size());
+        assertEquals(2, batches.get(0).size());
+        assertEquals("0123456789", database.get("g1").getChat());
+        assertEquals("hello", database.get("g2").getChat());
+
+        // Nothing changed since
+        flush();
+        assertEquals(1, batches.size());
+    }
+
+    @Test
+    void retriesFailedSaveWithLatestState() {
+        store.update("g1", game -> game.setChat("first"));
+        saveFails = true;
+        flush();
+        assertEquals("", database.get("g1").getChat());
+
+        store.update("g1", game -> game.setChat("second"));
+        saveFails = false;
+        flush();
+
+        assertEquals("second", database.get("g1").getChat());
+        assertEquals(1, batches.size());
+    }
+
+    @Test
+    void savesOtherGamesWhenOneCannotBeSaved() {
+        unsavable = "g1";
+        store.update("g1", game -> game.setChat("too long"));
+        store.update("g2", game -> game.setChat("hello"));
+
+        flush();
+
+        // The batch failed, but g2 was saved on its own
+        assertEquals("hello", database.get("g2").getChat());
+        assertEquals("", database.get("g1").getChat());
+        assertEquals("too long", store.get("g1").getChat());
+
+        // g1 is retried, then dropped from memory with its unsaved change
+        for (int attempt = 2; attempt < GameStateStore.MAX_SAVE_ATTEMPTS; attempt++) {
+            flush();
+            assertEquals("too long", store.get("g1").getChat());
+        }
+        assertEquals(2, loads.get());
+        flush();
+
+        // Runs after the eviction in the mailbox, so it loads the saved game again
+        unsavable = null;
+        assertEquals("!", store.update("g1", game -> game.setChat(game.getChat() + "!")).getChat());
+        assertEquals(3, loads.get());
+        flush();
+        assertEquals("!", database.get("g1").getChat());
+    }
+
+    @Test
+    void savesEndedGameRightAway() throws InterruptedException {
+        saveStarted = new CountDownLatch(1);
+
+        store.update("g1", game -> game.setPartitaTerminata(true));
+
+        assertTrue(saveStarted.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void savesDirtyGamesOnShutdown() throws InterruptedException {
+        store.update("g1", game -> game.setChat("last words"));
+
+        store.destroy();
+
+        assertEquals("last words", database.get("g1").getChat());
+    }
+
+    @Test
+    void appliesChangesSentAfterShutdown() throws InterruptedException {
+        store.destroy();
+
+        // Runs on this thread, and ending the game must not fail the change although the writer is gone
+        Game ended = store.update("g2", game -> game.setPartitaTerminata(true));
+
+        assertTrue(ended.isPartitaTerminata());
+        assertTrue(store.get("g2").isPartitaTerminata());
+    }
+
+    @Test
+    void evictsIdleSavedGames() throws InterruptedException {
+        store.update("g1", game -> game.setChat("unsaved"));
+        store.get("g2");
+        Thread.sleep(5);
+
+        // g1 has unsaved changes and stays in memory
+        ReflectionTestUtils.invokeMethod(store, "evictIdle");
+        store.update("g1", game -> game.setChat(game.getChat() + "!"));
+        store.update("g2", game -> game.setChat("reloaded"));
+
+        // g2 was dropped before its update ran, so it was loaded again
+        assertEquals(3, loads.get());
+        assertEquals("unsaved!", store.get("g1").getChat());
+        assertEquals("reloaded", store.get("g2").getChat());
+    }
+
+    @Test
+    void removedGameIsNotWrittenBackByRunningFlush() throws Exception {
+        store.update("g1", game -> game.setChat("deleted soon"));
+        saveStarted = new CountDownLatch(1);
+        releaseSave = new CountDownLatch(1);
+
+        // The flush takes the game, then waits in saveAll
+        Future<?> flush = clients.submit(this::flush);
+        assertTrue(saveStarted.await(5, TimeUnit.SECONDS));
+
+        // Removing waits for that flush, so the delete comes after its save
+        Future<?> remove = clients.submit(() -> store.remove("g1"));
+        Thread.sleep(200);
+        assertFalse(remove.isDone());
+
+        releaseSave.countDown();
+        flush.get(5, TimeUnit.SECONDS);
+        remove.get(5, TimeUnit.SECONDS);
+
+        // Until the delete commits the row is still there, but the game is not loaded again
+        assertThrows(SessionGameNotFoundException.class, () -> store.get("g1"));
+        assertThrows(SessionGameNotFoundException.class, () -> store.update("g1", game -> game.setChat("late")));
+        assertEquals(1, loads.get());
+        database.remove("g1");
+
+        flush();
+        assertFalse(database.containsKey("g1"));
+    }
+
+    private void flush() {
+        ReflectionTestUtils.invokeMethod(store, "flush");
+    }
+
+    private GameRepository repository() {
+        return (GameRepository) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] {GameRepository.class},
+                (proxy, method, args) -> switch (method.getName()) {
+                    case "findByIdWithAllCollections" -> {
+                        loads.incrementAndGet();
+                        yield Optional.ofNullable(database.get((String) args[0]));
+                    }
+                    case "saveAll" -> {
+                        if (saveStarted != null) {
+                            saveStarted.countDown();
+                        }
+                        if (releaseSave != null) {
+                            releaseSave.await();
+                        }
+                        if (saveFails) {
+                            throw new IllegalStateException("Database unavailable");
+                        }
+                        for (Object game : (Iterable<?>) args[0]) {
+                            if (((Game) game).getId().equals(unsavable)) {
+                                throw new IllegalStateException("Data too long for column 'chat'");
+                            }
+                        }
+                        List<Game> saved = new ArrayList<>();
+                        for (Object game : (Iterable<?>) args[0]) {
+                            saved.add((Game) game);
+                            database.put(((Game) game).getId(), (Game) game);
+                        }
+                        batches.add(saved);
+                        yield saved;
+                    }
+                    case "save" -> {
+                        Game game = (Game) args[0];
+                        if (saveFails) {
+                            throw new IllegalStateException("Database unavailable");
+                        }
+                        if (game.getId().equals(unsavable)) {
+                            throw new IllegalStateException("Data too long for column 'chat'");
+                        }
+                        database.put(game.getId(), game);
+                        yield game;
+                    }
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+    }
+
+    private static Game game(String id) {
+        Game game = new Game();
+        game.setId(id);
+        game.setBoard(game.getBOARDINIT());
+        game.setTurno(Team.WHITE);
+        game.setPedineW(12);
+        game.setPedineB(12);
+        return game;
+    }
+}
@@ -0,0 +1,275 @@
+package org.onlinecheckers.apiserver.services;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.onlinecheckers.bot.dto.BotMoveRequestDto;
+import org.onlinecheckers.bot.dto.BotMoveResponseDto;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Lambda client against a local HTTP stub standing in for the Lambda
+ */
+class LambdaBotClientTest {
+
+    private static final String LAMBDA_MOVE = "{\"from\":\"52\",\"to\":\"43\",\"path\":[\"52\",\"43\"],\"depth\":8}";
+
+    private HttpServer stub;
+    private final ExecutorService stubExecutor = Executors.newCachedThreadPool();
+    private final AtomicInteger stubCalls = new AtomicInteger();
+
+    // Stub behaviour, changed by the tests
+    private volatile int stubStatus = 200;
+    private volatile long stubDelayMs = 0;
+
+    private LambdaBotClient client;
+    private BotExecutor botExecutor = new BotExecutor(2, 4);
+
+    @BeforeEach
+    void startStub() throws IOException {
+        stub = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        stub.setExecutor(stubExecutor);
+        stub.createContext("/bot/move", exchange -> {
+            stubCalls.incrementAndGet();
+            exchange.getRequestBody().readAllBytes();
+            try {
+                Thread.sleep(stubDelayMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            byte[] body = (stubStatus == 200 ? LAMBDA_MOVE : "{\"error\":\"failed\"}").getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(stubStatus, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        stub.createContext("/bot/moves", exchange -> {
+            stubCalls.incrementAndGet();
+            exchange.getRequestBody().readAllBytes();
+
+            byte[] body = (stubStatus == 200 ? "[" + LAMBDA_MOVE + "," + LAMBDA_MOVE + "]" : "{\"error\":\"failed\"}")
+                    .getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(stubStatus, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        stub.start();
+    }
+
+    @AfterEach
+    void stopStub() {
+        if (client != null) {
+            client.close();
+        }
+        botExecutor.shutdown();
+        stub.stop(0);
+        stubExecutor.shutdownNow();
+    }
+
+    @Test
+    void usesLambdaMove() {
+        client = client(10_000, 5_000, new CircuitBreaker(3, 60_000));
+
+        BotMoveResponseDto move = client.calculateMove(request(), stop -> localMove()).join();
+
+        assertEquals("52", move.getFrom());
+        assertEquals("43", move.getTo());
+        assertEquals(1, client.getLambdaMoves());
+    }
+
+    @Test
+    void fallsBackOnErrorStatus() {
+        stubStatus = 500;
+        client = client(10_000, 5_000, new CircuitBreaker(3, 60_000));
+
+        BotMoveResponseDto move = client.calculateMove(request(), stop -> localMove()).join();
+
+        assertEquals("21", move.getFrom());
+        assertEquals(1, client.getFallbackMoves());
+    }
+
+    @Test
+    void hedgesSlowLambdaWithLocalMove() {
+        stubDelayMs = 3_000;
+        client = client(10_000, 100, new CircuitBreaker(3, 60_000));
+
+        long start = System.currentTimeMillis();
+        BotMoveResponseDto move = client.calculateMove(request(), stop -> localMove()).join();
+
+        assertEquals("21", move.getFrom());
+        assertTrue(System.currentTimeMillis() - start < 2_000);
+        assertEquals(1, client.getHedgedMoves());
+    }
+
+    @Test
+    void hedgedLambdaCanStillWin() {
+        stubDelayMs = 300;
+        client = client(10_000, 50, new CircuitBreaker(3, 60_000));
+
+        BotMoveResponseDto move = client.calculateMove(request(), slowLocalMove(3_000)).join();
+
+        assertEquals("52", move.getFrom());
+        assertEquals(1, client.getHedgedMoves());
+    }
+
+    @Test
+    void lambdaWinStopsLocalSearch() throws InterruptedException {
+        stubDelayMs = 300;
+        client = client(10_000, 50, new CircuitBreaker(3, 60_000));
+
+        CountDownLatch stopped = new CountDownLatch(1);
+        BotMoveResponseDto move = client.calculateMove(request(), stop -> {
+            while (!stop.get()) {
+                Thread.onSpinWait();
+            }
+            stopped.countDown();
+            return localMove();
+        }).join();
+
+        assertEquals("52", move.getFrom());
+        assertTrue(stopped.await(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void slowLambdaCallsHoldNoBotThread() {
+        // One bot thread: both hedges run on it while both Lambda calls are still pending
+        botExecutor.shutdown();
+        botExecutor = new BotExecutor(1, 4);
+        stubDelayMs = 3_000;
+        client = client(10_000, 100, new CircuitBreaker(1, 60_000));
+
+        long start = System.currentTimeMillis();
+        CompletableFuture<BotMoveResponseDto> first = client.calculateMove(request(), stop -> localMove());
+        CompletableFuture<BotMoveResponseDto> second = client.calculateMove(request(), stop -> localMove());
+
+        assertEquals("21", first.join().getFrom());
+        assertEquals("21", second.join().getFrom());
+        assertTrue(System.currentTimeMillis() - start < 2_000);
+        assertEquals(2, client.getHedgedMoves());
+        // The aborted Lambda calls are not failures
+        assertEquals(CircuitBreaker.State.CLOSED, client.getCircuitState());
+    }
+
+    @Test
+    void readTimeoutBoundsLambda() {
+        stubDelayMs = 5_000;
+        client = client(300, 60_000, new CircuitBreaker(3, 60_000));
+
+        long start = System.currentTimeMillis();
+        BotMoveResponseDto move = client.calculateMove(request(), stop -> localMove()).join();
+
+        assertEquals("21", move.getFrom());
+        assertTrue(System.currentTimeMillis() - start < 3_000);
+        assertEquals(1, client.getFallbackMoves());
+    }
+
+    @Test
+    void openCircuitSkipsLambda() {
+        stubStatus = 500;
+        client = client(10_000, 5_000, new CircuitBreaker(2, 60_000));
+
+        client.calculateMove(request(), stop -> localMove()).join();
+        client.calculateMove(request(), stop -> localMove()).join();
+        assertEquals(CircuitBreaker.State.OPEN, client.getCircuitState());
+
+        BotMoveResponseDto move = client.calculateMove(request(), stop -> localMove()).join();
+
+        assertEquals("21", move.getFrom());
+        assertEquals(2, stubCalls.get());
+        assertEquals(3, client.getFallbackMoves());
+    }
+
+    @Test
+    void successfulTrialClosesCircuit() throws InterruptedException {
+        stubStatus = 500;
+        client = client(10_000, 5_000, new CircuitBreaker(1, 200));
+
+        client.calculateMove(request(), stop -> localMove()).join();
+        assertEquals(CircuitBreaker.State.OPEN, client.getCircuitState());
+
+        stubStatus = 200;
+        Thread.sleep(300);
+        BotMoveResponseDto move = client.calculateMove(request(), stop -> localMove()).join();
+
+        assertEquals("52", move.getFrom());
+        assertEquals(CircuitBreaker.State.CLOSED, client.getCircuitState());
+    }
+
+    @Test
+    void usesLambdaBatch() {
+        client = client(10_000, 5_000, new CircuitBreaker(3, 60_000));
+
+        List<BotMoveResponseDto> moves = client.calculateMoves(List.of(request(), request()),
+                () -> CompletableFuture.completedFuture(List.of(localMove(), localMove()))).join();
+
+        assertEquals(2, moves.size());
+        assertEquals("52", moves.get(0).getFrom());
+        assertEquals("52", moves.get(1).getFrom());
+        assertEquals(1, stubCalls.get());
+    }
+
+    @Test
+    void fallsBackOnIncompleteBatch() {
+        client = client(10_000, 5_000, new CircuitBreaker(3, 60_000));
+
+        // The stub always answers with two moves
+        List<BotMoveResponseDto> moves = client.calculateMoves(List.of(request(), request(), request()),
+                () -> CompletableFuture.completedFuture(List.of(localMove(), localMove(), localMove()))).join();
+
+        assertEquals(3, moves.size());
+        assertEquals("21", moves.get(0).getFrom());
+        assertEquals(3, client.getFallbackMoves());
+    }
+
+    private LambdaBotClient client(long readTimeoutMs, long hedgeDelayMs, CircuitBreaker circuitBreaker) {
+        String url = "http://127.0.0.1:" + stub.getAddress().getPort();
+        return new LambdaBotClient(url, 1_000, readTimeoutMs, 95, hedgeDelayMs, circuitBreaker, botExecutor);
+    }
+
+    private static BotMoveRequestDto request() {
+        String[][] board = new String[8][8];
+        for (String[] row : board) {
+            Arrays.fill(row, "");
+        }
+        board[5][2] = "w";
+        board[2][1] = "b";
+        return new BotMoveRequestDto(board, "white", 2, null);
+    }
+
+    private BotMoveResponseDto localMove() {
+        return new BotMoveResponseDto("21", "32", List.of("21", "32"));
+    }
+
+    private Function<AtomicBoolean, BotMoveResponseDto> slowLocalMove(long delayMs) {
+        return stop -> {
+            try {
+                Thread.sleep(delayMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return localMove();
+        };
+    }
+}
@@ -0,0 +1,39 @@
+package org.onlinecheckers.bot.benchmarks;
+
+import org.onlinecheckers.bot.model.Bitboard;
+import org.onlinecheckers.bot.service.Evaluator;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Static evaluation benchmark. Each operation evaluates every position of the set once.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class EvaluatorBenchmark {
+
+    @Param
+    public PositionSet positions;
+
+    private Bitboard[] boards;
+
+    @Setup
+    public void setup() {
+        boards = positions.boards();
+    }
+
+    @Benchmark
+    public int evaluateBoard() {
+        int total = 0;
+        for (Bitboard board : boards) {
+            total += Evaluator.evaluate(board, board.getSideToMove());
+        }
+        return total;
+    }
+}
@@ -0,0 +1,75 @@
+package org.onlinecheckers.bot.benchmarks;
+
+import org.onlinecheckers.bot.model.Bitboard;
+import org.onlinecheckers.bot.model.MoveList;
+import org.onlinecheckers.bot.model.Team;
+import org.onlinecheckers.bot.service.MoveGenerator;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Move generation benchmarks. Each operation processes every position of the set once.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class MoveGeneratorBenchmark {
+
+    @Param
+    public PositionSet positions;
+
+    private Bitboard[] boards;
+    private final MoveList moves = new MoveList();
+
+    @Setup
+    public void setup() {
+        boards = positions.boards();
+    }
+
+    @Benchmark
+    public int getAllPossibleMoves() {
+        int total = 0;
+        for (Bitboard board : boards) {
+            MoveGenerator.getAllPossibleMoves(board, board.getSideToMove(), moves);
+            total += moves.size();
+        }
+        return total;
+    }
+
+    @Benchmark
+    public int getAllCaptures() {
+        int total = 0;
+        for (Bitboard board : boards) {
+            MoveGenerator.getAllCaptures(board, board.getSideToMove(), moves);
+            total += moves.size();
+        }
+        return total;
+    }
+
+    /**
+     * Capture search from every piece of the side to move, without the maximum-capture filter
+     */
+    @Benchmark
+    public void findMultipleCaptures(Blackhole blackhole) {
+        for (Bitboard board : boards) {
+            Team team = board.getSideToMove();
+            int own = board.pieces(team);
+            int opponent = board.pieces(Bitboard.opponent(team));
+            int kings = board.getKings();
+
+            moves.clear();
+            for (int pieces = own; pieces != 0; pieces &= pieces - 1) {
+                int sq = Integer.numberOfTrailingZeros(pieces);
+                int occupied = (own | opponent) & ~(1 << sq);
+                blackhole.consume(MoveGenerator.findMultipleCaptures(
+                    team, sq, sq, (kings & (1 << sq)) != 0, false, occupied, opponent, 0, 0, 0L, moves));
+            }
+        }
+    }
+}
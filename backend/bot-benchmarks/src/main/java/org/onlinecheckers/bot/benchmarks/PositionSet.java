@@ -0,0 +1,78 @@
+package org.onlinecheckers.bot.benchmarks;
+
+import org.onlinecheckers.bot.model.Bitboard;
+
+/**
+ * Fixed corpus of benchmark positions, grouped by game phase.
+ *
+ * Positions use the board history format (64 squares in row-major order plus the
+ * side to move), see Bitboard.fromHistoryString. They were taken from seeded
+ * random games and must not change, so results stay comparable between runs.
+ */
+public enum PositionSet {
+
+    OPENING(
+        ".b.b.b.bb...b.b..b.....b..b.b...........w.w.w.w..w.w.w..w.w.w.w._white",
+        ".b.b.b.bb...b.b..b...b....w...b...............w..w.w.w.ww.w.w.w._white",
+        ".b.b.b.b..b.b.b..b.b...wb..............ww.w.w....w.w....w.w.w.w._white",
+        ".b.b.b.bb.b.b.b..b...b.w....w...........w...w.w..w.w.w..w.w.w.w._black",
+        ".b.b.b.bb.b.b.b......b.wb........w......w...w.w..w...w..w.w.w.w._black",
+        ".b.b.b.bb...b.b......b.b..b.b..........ww...w....w.w.w.ww.w.w.w._white",
+        ".b.b.b.bb...b.b......b.bb..........w....w.....w....w.w.ww.w.w.w._white",
+        "...b.b.bb.b.b.b..b.....b....b..........ww.w.w......w...ww.w.w.w._white"
+    ),
+
+    MIDDLEGAME(
+        ".b...b.bb.b.b........b.w.........w...w......w....w.w...w..w....._white",
+        ".....b.bb.b...b..b...b.............w......b.w.w........ww.w.w..._black",
+        ".......bb.b.b.b..b...b.............w......w.w.w........ww.w....._white",
+        ".b...b.bb...b.b........b....b....w......w.....w....w...w....w.w._black",
+        ".b...b.bb...b........b.b.........w.b....w.....w....w.w.w......w._white",
+        ".b...b.bb.....b........wb.b...b....b....w.w...w....w...ww...w.w._black",
+        ".b...b.bb...b..........bb.w.b..........w..w.w....w.w...w....w.w._black",
+        ".b.b.b..b.....b..b.....b......b....w.w......w....w.b.w.w..w...w._white"
+    ),
+
+    // Side to move has a capture sequence of two or more pieces
+    MULTI_CAPTURE(
+        ".b.b...b....b....b...b.b..b......w...w...........w...w.bw.w...w._white",
+        ".b.....bb.b............b..b........w...w..w......w.w...ww.w.w.w._white",
+        ".b.....bb...b.b..b.....w..b..........w..w.w............ww.w.w.w._white",
+        ".b.b.b.bb.b.b.b..b.w...b......b....w........w.w..w.w.w.ww.w.w.w._black",
+        ".b.b.b.b....b.b........b..b.................b.w....w.w.ww.w.w.w._white",
+        ".b...b.b....b.b....b...wb...w.b.........w.w...w......w..w...w.w._black",
+        ".b.b.b.bb.b.w..........b....w....w.....b....w........w..w.w.w.w._black",
+        "...b...bb.b......b............w..w.w.............w.w........B..._black"
+    ),
+
+    KING_ENDGAME(
+        "........b.b........w...b...........................B..........B._black",
+        ".......W..................b...b......................B.........._white",
+        ".................b........b.W...............b........B.........._white",
+        "........................b........W..........b........B.........._black",
+        ".....W.b......b......w....................................B....._black",
+        "...W...................bw.w..........b......................B..._black",
+        "...W........w...........w..............b......b.............B..._white",
+        "..........W.w...........w..............b......b....B............_white"
+    );
+
+    private final String[] entries;
+
+    PositionSet(String... entries) {
+        this.entries = entries;
+    }
+
+    /**
+     * Parse the positions of this set
+     */
+    public Bitboard[] boards() {
+        Bitboard[] boards = new Bitboard[entries.length];
+        for (int i = 0; i < entries.length; i++) {
+            boards[i] = Bitboard.fromHistoryString(entries[i]);
+            if (boards[i] == null) {
+                throw new IllegalStateException("Invalid benchmark position: " + entries[i]);
+            }
+        }
+        return boards;
+    }
+}
@@ -0,0 +1,92 @@
+package org.onlinecheckers.bot.benchmarks;
+
+import org.onlinecheckers.bot.dto.BotMoveRequestDto;
+import org.onlinecheckers.bot.dto.BotMoveResponseDto;
+import org.onlinecheckers.bot.model.Bitboard;
+import org.onlinecheckers.bot.model.Team;
+import org.onlinecheckers.bot.service.BotAlgorithm;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full calculateMove benchmark at each difficulty.
+ *
+ * Each operation searches the next position of the set with an empty transposition
+ * table, so results don't depend on what earlier operations cached. Besides moves
+ * per second, the "nodes" counter reports the positions searched per second.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+@State(Scope.Thread)
+public class SearchBenchmark {
+
+    @Param
+    public PositionSet positions;
+
+    @Param({"1", "2", "3", "4"})
+    public int difficulty;
+
+    private BotAlgorithm algorithm;
+    private BotMoveRequestDto[] requests;
+    private int next = 0;
+    private PrintStream originalOut;
+
+    /**
+     * Positions searched, reported as a rate next to the primary result
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Counters {
+        public long nodes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            nodes = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        algorithm = new BotAlgorithm();
+
+        Bitboard[] boards = positions.boards();
+        requests = new BotMoveRequestDto[boards.length];
+        for (int i = 0; i < boards.length; i++) {
+            String color = boards[i].getSideToMove() == Team.WHITE ? "white" : "black";
+            requests[i] = new BotMoveRequestDto(boards[i].toArray(), color, difficulty, null);
+        }
+
+        // The engine logs every move: silence it in the benchmark JVM
+        originalOut = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        System.setOut(originalOut);
+        algorithm.shutdown();
+    }
+
+    @Setup(Level.Invocation)
+    public void clearCache() {
+        algorithm.clearTranspositionTable();
+    }
+
+    @Benchmark
+    public BotMoveResponseDto calculateMove(Counters counters) {
+        BotMoveRequestDto request = requests[next];
+        next = (next + 1) % requests.length;
+
+        long before = algorithm.getTotalNodes();
+        BotMoveResponseDto response = algorithm.calculateMove(request);
+        counters.nodes += algorithm.getTotalNodes() - before;
+        return response;
+    }
+}
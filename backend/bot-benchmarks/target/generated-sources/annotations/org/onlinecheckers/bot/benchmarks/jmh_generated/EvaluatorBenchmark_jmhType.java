@@ -0,0 +1,4 @@
+package org.onlinecheckers.bot.benchmarks.jmh_generated;
+public class EvaluatorBenchmark_jmhType extends EvaluatorBenchmark_jmhType_B3 {
+}
+
@@ -0,0 +1,4 @@
+package org.onlinecheckers.bot.benchmarks.jmh_generated;
+public class MoveGeneratorBenchmark_jmhType extends MoveGeneratorBenchmark_jmhType_B3 {
+}
+
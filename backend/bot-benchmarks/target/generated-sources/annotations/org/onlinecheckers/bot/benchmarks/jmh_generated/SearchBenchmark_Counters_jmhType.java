@@ -0,0 +1,4 @@
+package org.onlinecheckers.bot.benchmarks.jmh_generated;
+public class SearchBenchmark_Counters_jmhType extends SearchBenchmark_Counters_jmhType_B3 {
+}
+
@@ -10,8 +10,10 @@ import java.util.List;
 public class BotMoveRequestDto {
     private String[][] board;
     private String playerColor; // "white" or "black"
-    private int difficulty; // 1 (easy), 2 (medium), 3 (hard)
-    private List<String> boardHistory; // List of previous board states as hashes
+    private int difficulty; // 1 (easy), 2 (medium), 3 (hard), 4 (expert)
+    private List<String> boardHistory; // Previous board states ("." / w / b / W / B per square + "_white" or "_black")
+    private Long timeLimitMs; // Optional search time budget, difficulty default when null
+    private String gameId; // Optional id of the client's game, requests of the same game share it
 
     // Default constructor for Jackson
     public BotMoveRequestDto() {}
@@ -55,4 +57,20 @@ public class BotMoveRequestDto {
     public void setBoardHistory(List<String> boardHistory) {
         this.boardHistory = boardHistory;
     }
+
+    public Long getTimeLimitMs() {
+        return timeLimitMs;
+    }
+
+    public void setTimeLimitMs(Long timeLimitMs) {
+        this.timeLimitMs = timeLimitMs;
+    }
+
+    public String getGameId() {
+        return gameId;
+    }
+
+    public void setGameId(String gameId) {
+        this.gameId = gameId;
+    }
 }
\ No newline at end of file
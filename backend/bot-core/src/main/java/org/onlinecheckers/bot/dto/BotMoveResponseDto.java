@@ -11,6 +11,8 @@ public class BotMoveResponseDto {
     private String from;
     private String to;
     private List<String> path;
+    private Integer depth; // Deepest completed search iteration (null if not searched)
+    private Long nodes; // Positions searched to find the move
 
     // Default constructor for Jackson
     public BotMoveResponseDto() {}
@@ -45,4 +47,20 @@ public class BotMoveResponseDto {
     public void setPath(List<String> path) {
         this.path = path;
     }
+
+    public Integer getDepth() {
+        return depth;
+    }
+
+    public void setDepth(Integer depth) {
+        this.depth = depth;
+    }
+
+    public Long getNodes() {
+        return nodes;
+    }
+
+    public void setNodes(Long nodes) {
+        this.nodes = nodes;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,375 @@
+package org.onlinecheckers.bot.model;
+
+/**
+ * Compact board representation used by the bot search.
+ *
+ * Only the 32 dark squares of the 8x8 board are playable, so each side is stored
+ * as a 32-bit mask. Square index = row * 4 + col / 2, which keeps the same
+ * row-major scan order as the String[][] board.
+ *
+ * Moves are applied in place with makeMove and reverted with unmakeMove,
+ * so the search never copies or allocates boards. The Zobrist hash of the
+ * position and the evaluation features of both sides (see Features) are
+ * updated incrementally along with the pieces, and so is the hash of the
+ * colour-flipped position (see Symmetry).
+ */
+public final class Bitboard {
+
+    public static final int SQUARES = 32;
+
+    // Maximum number of moves that can be made before unmaking them
+    private static final int MAX_PLY = 256;
+
+    // "rc" position strings for every square, shared to avoid allocation
+    private static final String[] POSITIONS = new String[SQUARES];
+
+    static {
+        for (int sq = 0; sq < SQUARES; sq++) {
+            POSITIONS[sq] = row(sq) + "" + col(sq);
+        }
+    }
+
+    private int white;
+    private int black;
+    private int kings;
+    private Team sideToMove;
+    private long hash;
+    private long flippedHash;
+    private int whiteFeatures;
+    private int blackFeatures;
+
+    // Undo stack for unmakeMove
+    private final int[] undoWhite = new int[MAX_PLY];
+    private final int[] undoBlack = new int[MAX_PLY];
+    private final int[] undoKings = new int[MAX_PLY];
+    private final long[] undoHash = new long[MAX_PLY];
+    private final long[] undoFlippedHash = new long[MAX_PLY];
+    private final int[] undoWhiteFeatures = new int[MAX_PLY];
+    private final int[] undoBlackFeatures = new int[MAX_PLY];
+    private int undoTop = 0;
+
+    public Bitboard(int white, int black, int kings, Team sideToMove) {
+        setPosition(white, black, kings, sideToMove);
+    }
+
+    /**
+     * Replace the position and clear the undo stack.
+     * Lets tools that scan many positions reuse one board instead of allocating one each.
+     */
+    public void setPosition(int white, int black, int kings, Team sideToMove) {
+        this.white = white;
+        this.black = black;
+        this.kings = kings;
+        this.sideToMove = sideToMove;
+        this.hash = Zobrist.hash(white, black, kings, sideToMove);
+        this.flippedHash = Zobrist.hash(Symmetry.flipSquares(black), Symmetry.flipSquares(white),
+                                        Symmetry.flipSquares(kings), opponent(sideToMove));
+        this.whiteFeatures = Features.compute(white, kings, true);
+        this.blackFeatures = Features.compute(black, kings, false);
+        this.undoTop = 0;
+    }
+
+    /**
+     * Initial position of a game: black on rows 0-2, white on rows 5-7, white to move
+     */
+    public static Bitboard startPosition() {
+        return new Bitboard(0xFFF00000, 0x00000FFF, 0, Team.WHITE);
+    }
+
+    /**
+     * Build a bitboard from the String[][] board used by the API
+     * ("w"/"b" for pieces, "W"/"B" for kings, "" or null for empty squares).
+     * Pieces on light squares cannot exist in a legal game and are ignored.
+     */
+    public static Bitboard fromArray(String[][] board, Team sideToMove) {
+        int white = 0;
+        int black = 0;
+        int kings = 0;
+
+        for (int i = 0; i < 8; i++) {
+            for (int j = 0; j < 8; j++) {
+                String piece = board[i][j];
+                if (piece == null || piece.isEmpty()) continue;
+
+                int sq = square(i, j);
+                if (sq < 0) continue;
+
+                char c = piece.charAt(0);
+                if (c == 'w' || c == 'W') {
+                    white |= 1 << sq;
+                } else if (c == 'b' || c == 'B') {
+                    black |= 1 << sq;
+                } else {
+                    continue;
+                }
+
+                if (Character.isUpperCase(c)) {
+                    kings |= 1 << sq;
+                }
+            }
+        }
+
+        return new Bitboard(white, black, kings, sideToMove);
+    }
+
+    /**
+     * Parse a board history entry sent by the frontend: 64 characters in row-major
+     * order ('.' for empty squares, "w"/"b"/"W"/"B" for pieces) followed by
+     * "_white" or "_black" for the side to move.
+     *
+     * @return The position, or null if the entry is not in this format
+     */
+    public static Bitboard fromHistoryString(String entry) {
+        if (entry == null || entry.length() < 65 || entry.charAt(64) != '_') {
+            return null;
+        }
+
+        Team sideToMove;
+        String side = entry.substring(65);
+        if (side.equalsIgnoreCase("white")) {
+            sideToMove = Team.WHITE;
+        } else if (side.equalsIgnoreCase("black")) {
+            sideToMove = Team.BLACK;
+        } else {
+            return null;
+        }
+
+        String[][] board = new String[8][8];
+        for (int i = 0; i < 64; i++) {
+            char c = entry.charAt(i);
+            if (c != '.' && "wbWB".indexOf(c) < 0) {
+                return null;
+            }
+            board[i / 8][i % 8] = c == '.' ? "" : String.valueOf(c);
+        }
+
+        return fromArray(board, sideToMove);
+    }
+
+    /**
+     * Format the position as a board history entry (see fromHistoryString)
+     */
+    public String toHistoryString() {
+        StringBuilder sb = new StringBuilder(70);
+        for (String[] row : toArray()) {
+            for (String cell : row) {
+                sb.append(cell.isEmpty() ? "." : cell);
+            }
+        }
+        sb.append('_').append(sideToMove == Team.WHITE ? "white" : "black");
+        return sb.toString();
+    }
+
+    /**
+     * Convert back to the String[][] board used by the API
+     */
+    public String[][] toArray() {
+        String[][] board = new String[8][8];
+        for (int i = 0; i < 8; i++) {
+            for (int j = 0; j < 8; j++) {
+                board[i][j] = "";
+            }
+        }
+
+        for (int sq = 0; sq < SQUARES; sq++) {
+            int bit = 1 << sq;
+            String piece;
+            if ((white & bit) != 0) {
+                piece = (kings & bit) != 0 ? "W" : "w";
+            } else if ((black & bit) != 0) {
+                piece = (kings & bit) != 0 ? "B" : "b";
+            } else {
+                continue;
+            }
+            board[row(sq)][col(sq)] = piece;
+        }
+
+        return board;
+    }
+
+    /**
+     * Create an independent copy of this position (the undo stack is not copied)
+     */
+    public Bitboard copy() {
+        return new Bitboard(white, black, kings, sideToMove);
+    }
+
+    /**
+     * Apply the move at the given index of the list.
+     * The previous state is pushed on the undo stack.
+     */
+    public void makeMove(MoveList moves, int index) {
+        int fromBit = 1 << moves.from(index);
+        int toBit = 1 << moves.to(index);
+        int captured = moves.captured(index);
+
+        undoWhite[undoTop] = white;
+        undoBlack[undoTop] = black;
+        undoKings[undoTop] = kings;
+        undoHash[undoTop] = hash;
+        undoFlippedHash[undoTop] = flippedHash;
+        undoWhiteFeatures[undoTop] = whiteFeatures;
+        undoBlackFeatures[undoTop] = blackFeatures;
+        undoTop++;
+
+        boolean isWhite = (white & fromBit) != 0;
+        boolean wasKing = (kings & fromBit) != 0;
+        boolean isKing = wasKing || moves.promotes(index);
+
+        // Remove captured pieces from the hash and the opponent's features before clearing them
+        int capturedFeatures = 0;
+        for (int pieces = captured; pieces != 0; pieces &= pieces - 1) {
+            int sq = Integer.numberOfTrailingZeros(pieces);
+            int type = Zobrist.pieceType(!isWhite, (kings & (1 << sq)) != 0);
+            hash ^= Zobrist.pieceKey(type, sq);
+            flippedHash ^= Zobrist.flippedPieceKey(type, sq);
+            capturedFeatures += Features.pieceFeatures(type, sq);
+        }
+
+        int fromType = Zobrist.pieceType(isWhite, wasKing);
+        int toType = Zobrist.pieceType(isWhite, isKing);
+        hash ^= Zobrist.pieceKey(fromType, moves.from(index));
+        hash ^= Zobrist.pieceKey(toType, moves.to(index));
+        hash ^= Zobrist.sideKey();
+        flippedHash ^= Zobrist.flippedPieceKey(fromType, moves.from(index));
+        flippedHash ^= Zobrist.flippedPieceKey(toType, moves.to(index));
+        flippedHash ^= Zobrist.sideKey();
+
+        int movedFeatures = Features.pieceFeatures(toType, moves.to(index))
+                          - Features.pieceFeatures(fromType, moves.from(index));
+
+        if (isWhite) {
+            white = (white & ~fromBit) | toBit;
+            black &= ~captured;
+            whiteFeatures += movedFeatures;
+            blackFeatures -= capturedFeatures;
+        } else {
+            black = (black & ~fromBit) | toBit;
+            white &= ~captured;
+            blackFeatures += movedFeatures;
+            whiteFeatures -= capturedFeatures;
+        }
+
+        kings &= ~(captured | fromBit);
+        if (isKing) {
+            kings |= toBit;
+        }
+
+        sideToMove = opponent(sideToMove);
+    }
+
+    /**
+     * Revert the last move applied with makeMove
+     */
+    public void unmakeMove() {
+        undoTop--;
+        white = undoWhite[undoTop];
+        black = undoBlack[undoTop];
+        kings = undoKings[undoTop];
+        hash = undoHash[undoTop];
+        flippedHash = undoFlippedHash[undoTop];
+        whiteFeatures = undoWhiteFeatures[undoTop];
+        blackFeatures = undoBlackFeatures[undoTop];
+        sideToMove = opponent(sideToMove);
+    }
+
+    // Getters
+    public int getWhite() {
+        return white;
+    }
+
+    public int getBlack() {
+        return black;
+    }
+
+    public int getKings() {
+        return kings;
+    }
+
+    public Team getSideToMove() {
+        return sideToMove;
+    }
+
+    /**
+     * Number of moves made on this board and not unmade yet (the search ply)
+     */
+    public int getPly() {
+        return undoTop;
+    }
+
+    /**
+     * Zobrist hash of the position, including the side to move
+     */
+    public long getHash() {
+        return hash;
+    }
+
+    /**
+     * Hash shared by the position and its colour-flipped twin: the hash of whichever
+     * of the two has white to move (see Symmetry)
+     */
+    public long getCanonicalHash() {
+        return sideToMove == Team.WHITE ? hash : flippedHash;
+    }
+
+    /**
+     * Packed evaluation features of a side (decode them with the Features helpers)
+     */
+    public int features(Team team) {
+        return team == Team.WHITE ? whiteFeatures : blackFeatures;
+    }
+
+    public int pieces(Team team) {
+        return team == Team.WHITE ? white : black;
+    }
+
+    public int occupied() {
+        return white | black;
+    }
+
+    // Square helpers
+
+    /**
+     * Square index of a board coordinate, or -1 if it is off the board or a light square
+     */
+    public static int square(int row, int col) {
+        if (row < 0 || row >= 8 || col < 0 || col >= 8 || ((row + col) & 1) == 0) {
+            return -1;
+        }
+        return row * 4 + col / 2;
+    }
+
+    public static int row(int sq) {
+        return sq >> 2;
+    }
+
+    public static int col(int sq) {
+        // Even rows use the odd columns, odd rows the even columns
+        return ((sq & 3) << 1) + (((sq >> 2) & 1) == 0 ? 1 : 0);
+    }
+
+    /**
+     * "rc" position string of a square, as used in BotMoveResponseDto
+     */
+    public static String position(int sq) {
+        return POSITIONS[sq];
+    }
+
+    public static Team opponent(Team team) {
+        return team == Team.WHITE ? Team.BLACK : Team.WHITE;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        String[][] board = toArray();
+        for (String[] row : board) {
+            for (String cell : row) {
+                sb.append(cell.isEmpty() ? "." : cell);
+            }
+            sb.append('\n');
+        }
+        sb.append(sideToMove).append(" to move");
+        return sb.toString();
+    }
+}
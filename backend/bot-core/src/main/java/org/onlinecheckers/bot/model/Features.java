@@ -0,0 +1,76 @@
+package org.onlinecheckers.bot.model;
+
+/**
+ * Evaluation features of one side, kept up to date by Bitboard on every move.
+ *
+ * All features are packed into one int, 8 bits each: men count (bits 0-7), kings count
+ * (bits 8-15), advancement (bits 16-23, total rows the men advanced toward promotion) and
+ * edge pieces (bits 24-31). Every piece contributes a fixed packed value for its type and
+ * square, so adding or removing a piece is a single addition or subtraction, and
+ * fields never carry into each other (every field stays between 0 and 255).
+ */
+public final class Features {
+
+    private static final int KINGS_SHIFT = 8;
+    private static final int ADVANCEMENT_SHIFT = 16;
+    private static final int EDGES_SHIFT = 24;
+
+    // Contribution of each piece type (Zobrist piece type constants) on each square
+    private static final int[][] PIECE_FEATURES = new int[4][Bitboard.SQUARES];
+
+    static {
+        for (int sq = 0; sq < Bitboard.SQUARES; sq++) {
+            int row = Bitboard.row(sq);
+            int col = Bitboard.col(sq);
+            int edge = (col == 0 || col == 7) ? 1 << EDGES_SHIFT : 0;
+
+            // White advances toward row 0, black toward row 7. Kings have nowhere to advance:
+            // counting their row would reward them for staying on the promotion row.
+            int whiteAdvancement = (7 - row) << ADVANCEMENT_SHIFT;
+            int blackAdvancement = row << ADVANCEMENT_SHIFT;
+
+            PIECE_FEATURES[Zobrist.WHITE_MAN][sq] = 1 | whiteAdvancement | edge;
+            PIECE_FEATURES[Zobrist.WHITE_KING][sq] = (1 << KINGS_SHIFT) | edge;
+            PIECE_FEATURES[Zobrist.BLACK_MAN][sq] = 1 | blackAdvancement | edge;
+            PIECE_FEATURES[Zobrist.BLACK_KING][sq] = (1 << KINGS_SHIFT) | edge;
+        }
+    }
+
+    private Features() {}
+
+    /**
+     * Compute the features of one side from scratch
+     */
+    public static int compute(int pieces, int kings, boolean white) {
+        int features = 0;
+        for (int remaining = pieces; remaining != 0; remaining &= remaining - 1) {
+            int sq = Integer.numberOfTrailingZeros(remaining);
+            features += pieceFeatures(Zobrist.pieceType(white, (kings & (1 << sq)) != 0), sq);
+        }
+        return features;
+    }
+
+    /**
+     * Packed contribution of a piece type on a square
+     */
+    public static int pieceFeatures(int type, int sq) {
+        return PIECE_FEATURES[type][sq];
+    }
+
+    // Field decoding
+    public static int men(int features) {
+        return features & 0xFF;
+    }
+
+    public static int kings(int features) {
+        return (features >>> KINGS_SHIFT) & 0xFF;
+    }
+
+    public static int advancement(int features) {
+        return (features >>> ADVANCEMENT_SHIFT) & 0xFF;
+    }
+
+    public static int edges(int features) {
+        return features >>> EDGES_SHIFT;
+    }
+}
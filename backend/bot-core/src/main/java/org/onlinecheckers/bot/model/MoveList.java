@@ -0,0 +1,216 @@
+package org.onlinecheckers.bot.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reusable list of moves for a Bitboard position.
+ *
+ * Moves are stored in parallel primitive arrays so the search can generate
+ * and iterate them without allocating. Each search ply owns one list and
+ * clears it before generating.
+ *
+ * Packed move layout: from (bits 0-4), to (bits 5-9), capture count (bits 10-13),
+ * promotion flag (bit 14). Capture paths store up to 12 landing squares, 5 bits each.
+ * Each move also has an ordering score, set by the search to decide which move to try first.
+ */
+public class MoveList {
+
+    private static final int DEFAULT_CAPACITY = 64;
+
+    private int[] moves;
+    private int[] captured;
+    private long[] paths;
+    private int[] scores;
+    private int size;
+
+    public MoveList() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public MoveList(int capacity) {
+        moves = new int[capacity];
+        captured = new int[capacity];
+        paths = new long[capacity];
+        scores = new int[capacity];
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Add a move.
+     *
+     * @param from Origin square
+     * @param to Final square
+     * @param capturedMask Squares of the captured pieces (0 for simple moves)
+     * @param captureCount Number of captures (equals the number of path entries)
+     * @param path Packed landing squares of the capture sequence
+     * @param promotes Whether the piece becomes a king during the move
+     */
+    public void add(int from, int to, int capturedMask, int captureCount, long path, boolean promotes) {
+        if (size == moves.length) {
+            grow();
+        }
+        moves[size] = from | (to << 5) | (captureCount << 10) | (promotes ? 1 << 14 : 0);
+        captured[size] = capturedMask;
+        paths[size] = path;
+        scores[size] = 0;
+        size++;
+    }
+
+    /**
+     * Keep only the moves with the given capture count, preserving their order.
+     * Used for the maximum-capture rule.
+     */
+    public void retainCaptureCount(int captureCount) {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (captureCount(i) == captureCount) {
+                moves[kept] = moves[i];
+                captured[kept] = captured[i];
+                paths[kept] = paths[i];
+                scores[kept] = scores[i];
+                kept++;
+            }
+        }
+        size = kept;
+    }
+
+    /**
+     * Remove the move at the given index, preserving the order of the others
+     */
+    public void remove(int index) {
+        int tail = size - index - 1;
+        System.arraycopy(moves, index + 1, moves, index, tail);
+        System.arraycopy(captured, index + 1, captured, index, tail);
+        System.arraycopy(paths, index + 1, paths, index, tail);
+        System.arraycopy(scores, index + 1, scores, index, tail);
+        size--;
+    }
+
+    /**
+     * Swap two moves, used to search a preferred move first
+     */
+    public void swap(int i, int j) {
+        int m = moves[i];
+        moves[i] = moves[j];
+        moves[j] = m;
+
+        int c = captured[i];
+        captured[i] = captured[j];
+        captured[j] = c;
+
+        long p = paths[i];
+        paths[i] = paths[j];
+        paths[j] = p;
+
+        int s = scores[i];
+        scores[i] = scores[j];
+        scores[j] = s;
+    }
+
+    /**
+     * Move the highest scored move among those from the given index onward to that index.
+     * Calling it before searching each move tries moves in score order without sorting
+     * the whole list, which is cheaper when a cutoff happens early.
+     */
+    public void pickNext(int index) {
+        int best = index;
+        for (int i = index + 1; i < size; i++) {
+            if (scores[i] > scores[best]) {
+                best = i;
+            }
+        }
+        if (best != index) {
+            swap(index, best);
+        }
+    }
+
+    /**
+     * Sort all moves by descending score, keeping generation order for equal scores
+     */
+    public void sortByScore() {
+        for (int i = 1; i < size; i++) {
+            for (int j = i; j > 0 && scores[j] > scores[j - 1]; j--) {
+                swap(j, j - 1);
+            }
+        }
+    }
+
+    // Accessors
+    public int from(int index) {
+        return moves[index] & 31;
+    }
+
+    public int to(int index) {
+        return (moves[index] >>> 5) & 31;
+    }
+
+    public int captureCount(int index) {
+        return (moves[index] >>> 10) & 15;
+    }
+
+    public boolean promotes(int index) {
+        return (moves[index] & (1 << 14)) != 0;
+    }
+
+    public int captured(int index) {
+        return captured[index];
+    }
+
+    public int score(int index) {
+        return scores[index];
+    }
+
+    public void setScore(int index, int score) {
+        scores[index] = score;
+    }
+
+    /**
+     * Landing square of the given capture step
+     */
+    public int pathSquare(int index, int step) {
+        return (int) (paths[index] >>> (step * 5)) & 31;
+    }
+
+    /**
+     * Append a landing square to a packed path
+     */
+    public static long appendPath(long path, int step, int square) {
+        return path | ((long) square << (step * 5));
+    }
+
+    /**
+     * Convert a move to the Move model used by the API layer
+     */
+    public Move toMove(int index) {
+        List<String> capturePath = null;
+        int count = captureCount(index);
+        if (count > 0) {
+            capturePath = new ArrayList<>(count);
+            for (int step = 0; step < count; step++) {
+                capturePath.add(Bitboard.position(pathSquare(index, step)));
+            }
+        }
+        return new Move(Bitboard.position(from(index)), Bitboard.position(to(index)), capturePath);
+    }
+
+    private void grow() {
+        int capacity = moves.length * 2;
+        moves = Arrays.copyOf(moves, capacity);
+        captured = Arrays.copyOf(captured, capacity);
+        paths = Arrays.copyOf(paths, capacity);
+        scores = Arrays.copyOf(scores, capacity);
+    }
+}
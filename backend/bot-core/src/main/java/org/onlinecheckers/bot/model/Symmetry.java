@@ -0,0 +1,178 @@
+package org.onlinecheckers.bot.model;
+
+import org.onlinecheckers.bot.dto.BotMoveRequestDto;
+import org.onlinecheckers.bot.dto.BotMoveResponseDto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Colour-flip symmetry of checkers positions.
+ *
+ * Rotating the board by 180 degrees and swapping the colour of every piece and of the
+ * side to move gives an equivalent position: the best move of one is the rotated best
+ * move of the other. The rotation maps square sq to 31 - sq, and row r, column c to
+ * 7 - r, 7 - c. The twin with white to move is the canonical form, so tables keyed by
+ * position (transposition table, opening book, result caches) can share one entry
+ * between the two (see Bitboard.getCanonicalHash).
+ */
+public final class Symmetry {
+
+    private Symmetry() {}
+
+    /**
+     * Whether positions with this side to move are stored as their flipped twin
+     */
+    public static boolean isFlipped(Team sideToMove) {
+        return sideToMove == Team.BLACK;
+    }
+
+    public static int flipSquare(int sq) {
+        return Bitboard.SQUARES - 1 - sq;
+    }
+
+    /**
+     * Rotate a square mask
+     */
+    public static int flipSquares(int squares) {
+        return Integer.reverse(squares);
+    }
+
+    /**
+     * Square as seen in the canonical form of a position with the given side to move.
+     * Flipping is its own inverse, so the same call maps a canonical square back.
+     */
+    public static int canonicalSquare(Team sideToMove, int sq) {
+        return isFlipped(sideToMove) ? flipSquare(sq) : sq;
+    }
+
+    /**
+     * Square mask as seen in the canonical form of a position (see canonicalSquare)
+     */
+    public static int canonicalSquares(Team sideToMove, int squares) {
+        return isFlipped(sideToMove) ? flipSquares(squares) : squares;
+    }
+
+    /**
+     * Canonical form of a position: the position itself with white to move, otherwise its flipped twin
+     */
+    public static Bitboard canonical(Bitboard board) {
+        if (!isFlipped(board.getSideToMove())) {
+            return board;
+        }
+        return new Bitboard(flipSquares(board.getBlack()), flipSquares(board.getWhite()),
+                            flipSquares(board.getKings()), Team.WHITE);
+    }
+
+    /**
+     * Rotate an "rc" position string
+     */
+    public static String flipPosition(String position) {
+        return (7 - (position.charAt(0) - '0')) + "" + (7 - (position.charAt(1) - '0'));
+    }
+
+    /**
+     * Rotate a String[][] board and swap the colours of its pieces
+     */
+    public static String[][] flipBoard(String[][] board) {
+        String[][] flipped = new String[8][8];
+        for (int i = 0; i < 8; i++) {
+            for (int j = 0; j < 8; j++) {
+                String piece = board[i][j];
+                flipped[7 - i][7 - j] = piece == null || piece.isEmpty() ? "" : String.valueOf(flipPiece(piece.charAt(0)));
+            }
+        }
+        return flipped;
+    }
+
+    /**
+     * Flip a board history entry (see Bitboard.fromHistoryString)
+     *
+     * @return The flipped entry, or the entry unchanged if it is not in the history format
+     */
+    public static String flipHistoryString(String entry) {
+        if (Bitboard.fromHistoryString(entry) == null) {
+            return entry;
+        }
+
+        StringBuilder sb = new StringBuilder(70);
+        for (int i = 63; i >= 0; i--) {
+            sb.append(flipPiece(entry.charAt(i)));
+        }
+        sb.append(entry.substring(65).equalsIgnoreCase("white") ? "_black" : "_white");
+        return sb.toString();
+    }
+
+    /**
+     * Canonical form of a bot request: the request itself if the bot plays white,
+     * otherwise the flipped board and history with the bot playing white.
+     * Map the move calculated for it back with restore.
+     */
+    public static BotMoveRequestDto canonical(BotMoveRequestDto request) {
+        if (!isFlipped(request)) {
+            return request;
+        }
+
+        List<String> history = null;
+        if (request.getBoardHistory() != null) {
+            history = new ArrayList<>(request.getBoardHistory().size());
+            for (String entry : request.getBoardHistory()) {
+                history.add(flipHistoryString(entry));
+            }
+        }
+
+        BotMoveRequestDto flipped = new BotMoveRequestDto(flipBoard(request.getBoard()), "white",
+                                                          request.getDifficulty(), history);
+        flipped.setTimeLimitMs(request.getTimeLimitMs());
+        return flipped;
+    }
+
+    /**
+     * Map a move calculated for the canonical form of a request back to the request's board
+     * (or the other way round: flipping twice gives back the same move)
+     */
+    public static BotMoveResponseDto restore(BotMoveResponseDto response, BotMoveRequestDto request) {
+        return isFlipped(request) ? flip(response) : response;
+    }
+
+    /**
+     * Whether the canonical form of a request is its flipped twin (the bot plays black)
+     */
+    public static boolean isFlipped(BotMoveRequestDto request) {
+        return !request.getPlayerColor().equalsIgnoreCase("white");
+    }
+
+    /**
+     * Rotate the squares of a move response
+     */
+    private static BotMoveResponseDto flip(BotMoveResponseDto response) {
+        // Same origin and destination: the "no move" answer, which has no orientation
+        if (response.getFrom() == null || response.getFrom().equals(response.getTo())) {
+            return response;
+        }
+
+        List<String> path = null;
+        if (response.getPath() != null) {
+            path = new ArrayList<>(response.getPath().size());
+            for (String position : response.getPath()) {
+                path.add(flipPosition(position));
+            }
+        }
+
+        BotMoveResponseDto flipped = new BotMoveResponseDto(flipPosition(response.getFrom()),
+                                                            flipPosition(response.getTo()), path);
+        flipped.setDepth(response.getDepth());
+        flipped.setNodes(response.getNodes());
+        return flipped;
+    }
+
+    private static char flipPiece(char piece) {
+        switch (piece) {
+            case 'w': return 'b';
+            case 'b': return 'w';
+            case 'W': return 'B';
+            case 'B': return 'W';
+            default: return piece;
+        }
+    }
+}
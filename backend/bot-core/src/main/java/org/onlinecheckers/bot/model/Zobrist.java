@@ -0,0 +1,85 @@
+package org.onlinecheckers.bot.model;
+
+import java.util.SplittableRandom;
+
+/**
+ * Zobrist hashing for Bitboard positions.
+ *
+ * Every (piece type, square) pair and the side to move get a random 64-bit key;
+ * the hash of a position is the XOR of the keys of its pieces. Keys come from a
+ * fixed seed, so the api-server and the Lambda compute the same hash for the same position.
+ */
+public final class Zobrist {
+
+    public static final int WHITE_MAN = 0;
+    public static final int WHITE_KING = 1;
+    public static final int BLACK_MAN = 2;
+    public static final int BLACK_KING = 3;
+
+    private static final long SEED = 0x0C4EC4E25L;
+
+    private static final long[][] PIECE_KEYS = new long[4][Bitboard.SQUARES];
+
+    // XORed in when black is to move
+    private static final long BLACK_TO_MOVE;
+
+    static {
+        SplittableRandom random = new SplittableRandom(SEED);
+        for (int type = 0; type < 4; type++) {
+            for (int sq = 0; sq < Bitboard.SQUARES; sq++) {
+                PIECE_KEYS[type][sq] = random.nextLong();
+            }
+        }
+        BLACK_TO_MOVE = random.nextLong();
+    }
+
+    private Zobrist() {}
+
+    /**
+     * Compute the hash of a position from scratch
+     */
+    public static long hash(int white, int black, int kings, Team sideToMove) {
+        long hash = sideToMove == Team.BLACK ? BLACK_TO_MOVE : 0L;
+
+        for (int pieces = white; pieces != 0; pieces &= pieces - 1) {
+            int sq = Integer.numberOfTrailingZeros(pieces);
+            hash ^= PIECE_KEYS[(kings & (1 << sq)) != 0 ? WHITE_KING : WHITE_MAN][sq];
+        }
+        for (int pieces = black; pieces != 0; pieces &= pieces - 1) {
+            int sq = Integer.numberOfTrailingZeros(pieces);
+            hash ^= PIECE_KEYS[(kings & (1 << sq)) != 0 ? BLACK_KING : BLACK_MAN][sq];
+        }
+
+        return hash;
+    }
+
+    /**
+     * Key of a piece type on a square
+     */
+    public static long pieceKey(int type, int sq) {
+        return PIECE_KEYS[type][sq];
+    }
+
+    /**
+     * Key of the same piece in the colour-flipped position (see Symmetry):
+     * the other colour (piece types of the two colours differ in bit 1), on the rotated square
+     */
+    public static long flippedPieceKey(int type, int sq) {
+        return PIECE_KEYS[type ^ 2][Symmetry.flipSquare(sq)];
+    }
+
+    /**
+     * Key toggled every time the side to move changes
+     */
+    public static long sideKey() {
+        return BLACK_TO_MOVE;
+    }
+
+    /**
+     * Piece type constant for a team and rank
+     */
+    public static int pieceType(boolean white, boolean king) {
+        if (white) return king ? WHITE_KING : WHITE_MAN;
+        return king ? BLACK_KING : BLACK_MAN;
+    }
+}
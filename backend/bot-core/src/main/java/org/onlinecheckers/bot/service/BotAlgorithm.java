@@ -2,24 +2,141 @@ package org.onlinecheckers.bot.service;
 
 import org.onlinecheckers.bot.dto.BotMoveRequestDto;
 import org.onlinecheckers.bot.dto.BotMoveResponseDto;
+import org.onlinecheckers.bot.model.Bitboard;
 import org.onlinecheckers.bot.model.Team;
 import org.onlinecheckers.bot.model.Move;
 import org.onlinecheckers.bot.model.MoveEvaluation;
-
-import java.util.*;
-import java.util.stream.Collectors;
+import org.onlinecheckers.bot.model.MoveList;
+import org.onlinecheckers.bot.model.Symmetry;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Core bot algorithm for checkers game.
+ *
+ * The engine keeps no per-game state: everything a search needs, including the
+ * positions already reached in the game, comes with the request. One instance can
+ * therefore serve concurrent requests from any number of games; the only shared
+ * state is the transposition table, which is safe for concurrent use.
  */
 public class BotAlgorithm {
 
-    // Fields to track last moves for anti-repetition logic
-    // This prevents the bot from creating infinite loops by repeating the same moves
-    private String lastFromPosition = null;
-    private String lastToPosition = null;
-    private String secondLastFromPosition = null;
-    private String secondLastToPosition = null;
+    // Score of a position where the side to move has no legal moves left
+    private static final int WIN_SCORE = 1_000_000;
+
+    // Bound larger than any reachable score, used for the initial alpha-beta window
+    private static final int INFINITY = 1_000_000_000;
+
+    // Move ordering scores: best move from the transposition table, then captures,
+    // then killer moves; quiet moves are ordered by their history score (always lower)
+    private static final int TT_MOVE_SCORE = 1 << 30;
+    private static final int CAPTURE_SCORE = 1 << 29;
+    private static final int KILLER_SCORE = 1 << 28;
+
+    // Shallower iterations finish too quickly to be worth splitting across threads
+    private static final int PARALLEL_MIN_DEPTH = 4;
+
+    // Depth of the search that ranks the opponent's replies for pondering
+    private static final int REPLY_PREDICTION_DEPTH = 4;
+
+    private final SearchConfig config;
+
+    // Results of previous searches, shared by all requests served by this instance
+    private final TranspositionTable transpositionTable;
+
+    // Worker threads for parallel root search, null when searching single-threaded
+    private final ForkJoinPool pool;
+
+    // Precomputed moves for the first positions of a game, null when disabled
+    private final OpeningBook openingBook;
+
+    // Exact results of the positions with few pieces left, null when disabled
+    private final EndgameTablebase tablebase;
+
+    // Nodes searched by all requests served by this instance
+    private final LongAdder totalNodes = new LongAdder();
+
+    public BotAlgorithm() {
+        this(new SearchConfig());
+    }
+
+    public BotAlgorithm(SearchConfig config) {
+        this.config = config;
+        this.transpositionTable = new TranspositionTable(config.getTranspositionTableSizeMb());
+        this.pool = config.getThreads() > 1 ? new ForkJoinPool(config.getThreads()) : null;
+        this.openingBook = config.isOpeningBookEnabled() ? loadOpeningBook(config.getOpeningBookPath()) : null;
+        this.tablebase = config.isTablebaseEnabled() ? loadTablebase(config.getTablebasePath()) : null;
+    }
+
+    /**
+     * Load the opening book from a file, or the bundled one if no path is given.
+     * A missing or invalid book only disables book moves.
+     */
+    private static OpeningBook loadOpeningBook(String path) {
+        try {
+            OpeningBook book = path == null || path.isBlank() ? OpeningBook.loadDefault() : OpeningBook.open(Path.of(path));
+            if (book != null) {
+                System.out.println("Opening book loaded: " + book.size() + " moves");
+            }
+            return book;
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Opening book not available: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Load the endgame tables from a file, or the bundled ones if no path is given.
+     * Missing or invalid tables only disable endgame lookups.
+     */
+    private static EndgameTablebase loadTablebase(String path) {
+        try {
+            EndgameTablebase tables = path == null || path.isBlank() ? EndgameTablebase.loadDefault() : EndgameTablebase.open(Path.of(path));
+            if (tables != null) {
+                System.out.println("Endgame tablebase loaded: up to " + tables.maxPieces() + " pieces");
+            }
+            return tables;
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Endgame tablebase not available: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Total number of positions searched since this instance was created
+     */
+    public long getTotalNodes() {
+        return totalNodes.sum();
+    }
+
+    /**
+     * Forget all cached search results, so the next search starts from scratch
+     */
+    public void clearTranspositionTable() {
+        transpositionTable.clear();
+    }
+
+    /**
+     * Stop the parallel search threads, if any
+     */
+    public void shutdown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
 
     /**
      * Calculate the best move for the bot given the current board state.
@@ -29,73 +146,62 @@ public class BotAlgorithm {
      * @return The calculated best move with from/to positions and capture path
      */
     public BotMoveResponseDto calculateMove(BotMoveRequestDto request) {
-        // Convert playerColor string to Team enum for internal processing
-        Team botTeam = request.getPlayerColor().equalsIgnoreCase("white") ? Team.WHITE : Team.BLACK;
+        return calculateMove(request, new AtomicBoolean());
+    }
 
-        // Set minimax search depth based on difficulty level
+    /**
+     * Calculate the best move like calculateMove(request), with a search that another
+     * thread can stop early by setting the stop flag: the move of the deepest completed
+     * iteration is then returned. The flag is also set when the time budget runs out.
+     */
+    public BotMoveResponseDto calculateMove(BotMoveRequestDto request, AtomicBoolean stop) {
+        // Search limits for the difficulty level
         // Higher depth = stronger play but slower calculation
-        int depth;
-        switch (request.getDifficulty()) {
-            case 1: depth = 1; break;  // Easy: 1 move ahead
-            case 2: depth = 3; break;  // Medium: 3 moves ahead
-            case 3: depth = 5; break;  // Hard: 5 moves ahead
-            default: depth = 3;
-        }
-
-        // Execute MinMax algorithm with alpha-beta pruning for optimal move
-        MoveEvaluation bestMove = minimax(
-            request.getBoard(), 
-            depth, 
-            Integer.MIN_VALUE, 
-            Integer.MAX_VALUE, 
-            true, 
-            botTeam
-        );
+        int maxDepth = Math.max(1, config.getMaxDepth(request.getDifficulty()));
+        long timeLimitMs = config.getTimeLimitMs(request.getDifficulty());
+        if (request.getTimeLimitMs() != null && request.getTimeLimitMs() > 0) {
+            timeLimitMs = Math.min(request.getTimeLimitMs(), config.getMaxTimeLimitMs());
+        }
 
-        // Anti-repetition logic: check if this move would create a forbidden third repetition
-        // Pattern blocked: A->B, then B->A, then A->B again (infinite loop prevention)
-        if (wouldCreateThirdRepetition(bestMove.getFromPosition(), bestMove.getToPosition())) {
-            System.out.println("Blocking third repetition of pattern: " + 
-                              secondLastFromPosition + "->" + secondLastToPosition + " -> " +
-                              lastFromPosition + "->" + lastToPosition + " -> " +
-                              bestMove.getFromPosition() + "->" + bestMove.getToPosition());
-            
-            // Store the forbidden move positions for filtering
-            final String forbiddenFrom = bestMove.getFromPosition();
-            final String forbiddenTo = bestMove.getToPosition();
-            
-            // Find all available alternative moves
-            List<Move> allMoves = getAllPossibleMoves(request.getBoard(), botTeam);
-            
-            // Filter out the forbidden repetitive move
-            List<Move> alternativeMoves = allMoves.stream()
-                .filter(move -> !isSameMove(move.getFromPosition(), move.getToPosition(), 
-                                           forbiddenFrom, forbiddenTo))
-                .collect(Collectors.toList());
-            
-            if (!alternativeMoves.isEmpty()) {
-                // Evaluate alternative moves to pick the best non-repetitive option
-                MoveEvaluation bestAlternative = null;
-                for (Move altMove : alternativeMoves) {
-                    String[][] boardCopy = copyBoard(request.getBoard());
-                    applyMove(boardCopy, altMove);
-                    int score = evaluateBoard(boardCopy, botTeam);
-                    
-                    if (bestAlternative == null || score > bestAlternative.getScore()) {
-                        bestAlternative = new MoveEvaluation(score, altMove.getFromPosition(), 
-                                                           altMove.getToPosition(), altMove.getCapturePath());
-                    }
-                }
-                
-                if (bestAlternative != null) {
-                    bestMove = bestAlternative;
-                    System.out.println("Selected alternative move: " + bestMove.getFromPosition() + "->" + bestMove.getToPosition());
-                }
+        // Build the compact position and the per-search state
+        SearchContext ctx = new SearchContext(position(request), maxDepth, timeLimitMs,
+                                              historyHashes(request.getBoardHistory()), stop);
+
+        // Known opening position: answer from the book without searching
+        if (openingBook != null && request.getDifficulty() >= config.getOpeningBookMinDifficulty()) {
+            Move bookMove = probeOpeningBook(ctx.board(), ctx.moves(0));
+            if (bookMove != null) {
+                System.out.println("Bot selected book move: " + bookMove.getFromPosition() + " -> " + bookMove.getToPosition());
+                BotMoveResponseDto response = new BotMoveResponseDto(
+                        bookMove.getFromPosition(), bookMove.getToPosition(), bookMove.getCapturePath());
+                response.setDepth(0);
+                response.setNodes(0L);
+                return response;
             }
         }
 
-        // Update move history for future anti-repetition checks
-        updateMoveHistory(bestMove.getFromPosition(), bestMove.getToPosition());
+        // Few pieces left: play the best move by the endgame tables, and let the search use them
+        if (tablebase != null && request.getDifficulty() >= config.getTablebaseMinDifficulty()) {
+            Move tablebaseMove = probeTablebase(ctx, ctx.moves(0));
+            if (tablebaseMove != null) {
+                System.out.println("Bot selected tablebase move: " + tablebaseMove.getFromPosition() + " -> " + tablebaseMove.getToPosition());
+                BotMoveResponseDto response = new BotMoveResponseDto(
+                        tablebaseMove.getFromPosition(), tablebaseMove.getToPosition(), tablebaseMove.getCapturePath());
+                response.setDepth(0);
+                response.setNodes(0L);
+                return response;
+            }
+            ctx.setTablebase(tablebase);
+        }
+
+        // Resolve the captures pending at the search horizon
+        if (request.getDifficulty() >= config.getQuiescenceMinDifficulty()) {
+            ctx.setQuiescenceNodeLimit(config.getQuiescenceNodeLimit());
+        }
+
+        // Execute MinMax algorithm with alpha-beta pruning, deepening while time allows
+        transpositionTable.newSearch();
+        MoveEvaluation bestMove = iterativeDeepening(ctx, maxDepth);
 
         // Safety check: if no valid move found, return a default "no move" response
         if (bestMove.getFromPosition() == null || bestMove.getToPosition() == null) {
@@ -105,621 +211,723 @@ public class BotAlgorithm {
         System.out.println("Bot selected move: " + bestMove.getFromPosition() + " -> " + bestMove.getToPosition());
 
         // Convert internal move evaluation to API response format
-        return new BotMoveResponseDto(
+        BotMoveResponseDto response = new BotMoveResponseDto(
                 bestMove.getFromPosition(),
                 bestMove.getToPosition(),
                 bestMove.getCapturePath()
         );
+        response.setDepth(ctx.completedDepth());
+        response.setNodes(ctx.nodes());
+        return response;
     }
 
     /**
-     * Check if the current move would create a third repetition of the same pattern.
-     * This prevents infinite loops in gameplay.
-     * 
-     * Pattern: A->B, then B->A, then A->B again (ALLOWED)
-     * But: A->B, then B->A, then A->B, then B->A again (BLOCKED)
+     * Predict the opponent's most likely replies to a bot move, so their answers can be
+     * searched while the opponent is thinking (pondering). Replies are ranked by a shallow
+     * search from the opponent's side, best first.
+     *
+     * @param request Request the move was calculated for
+     * @param response Move played by the bot
+     * @param count Maximum number of replies
+     * @return The requests the bot gets next if the opponent plays one of the replies, with the
+     *         board history extended as the frontend does (empty if the move is not legal here
+     *         or the game is over after it)
      */
-    private boolean wouldCreateThirdRepetition(String fromPos, String toPos) {
-        // Need at least 2 previous moves to detect a repetition pattern
-        if (lastFromPosition == null || secondLastFromPosition == null) {
-            return false;
+    public List<BotMoveRequestDto> predictReplies(BotMoveRequestDto request, BotMoveResponseDto response, int count) {
+        Bitboard board = position(request);
+        MoveList moves = new MoveList();
+        MoveGenerator.getAllPossibleMoves(board, board.getSideToMove(), moves);
+        int played = findMove(moves, response);
+        if (played < 0) {
+            return List.of();
+        }
+
+        List<String> history = new ArrayList<>();
+        if (request.getBoardHistory() != null) {
+            history.addAll(request.getBoardHistory());
+        }
+        history.add(board.toHistoryString());
+
+        board.makeMove(moves, played);
+        Bitboard afterMove = board.copy();
+        if (isGameOver(afterMove)) {
+            return List.of();
+        }
+        history.add(afterMove.toHistoryString());
+
+        MoveList replies = new MoveList();
+        int[] scores = analyzeMoves(afterMove, replies, REPLY_PREDICTION_DEPTH);
+
+        List<Integer> ranked = new ArrayList<>();
+        for (int i = 0; i < replies.size(); i++) {
+            ranked.add(i);
+        }
+        ranked.sort(Comparator.comparingInt((Integer i) -> scores[i]).reversed());
+
+        List<BotMoveRequestDto> predicted = new ArrayList<>();
+        for (int i : ranked.subList(0, Math.min(count, ranked.size()))) {
+            afterMove.makeMove(replies, i);
+            List<String> replyHistory = new ArrayList<>(history);
+            replyHistory.add(afterMove.toHistoryString());
+
+            BotMoveRequestDto next = new BotMoveRequestDto(afterMove.toArray(), request.getPlayerColor(),
+                                                           request.getDifficulty(), replyHistory);
+            next.setTimeLimitMs(request.getTimeLimitMs());
+            predicted.add(next);
+            afterMove.unmakeMove();
         }
-        
-        // Check if we have the repetitive pattern: 
-        // Move 1: A->B (secondLast)
-        // Move 2: B->A (last) 
-        // Move 3: A->B (current) - this would be the third repetition to block
-        boolean isThirdInPattern = 
-            // Current move is reverse of last move
-            fromPos.equals(lastToPosition) && toPos.equals(lastFromPosition) &&
-            // Last move was reverse of second-last move  
-            lastFromPosition.equals(secondLastToPosition) && lastToPosition.equals(secondLastFromPosition) &&
-            // Current move is same as second-last move (completing the cycle)
-            fromPos.equals(secondLastFromPosition) && toPos.equals(secondLastToPosition);
-        
-        return isThirdInPattern;
+        return predicted;
     }
 
     /**
-     * Check if two moves are identical (same from and to positions)
+     * Index of a response's move in a list of legal moves, matched by origin, destination
+     * and capture path (the path tells apart captures with the same ends)
+     *
+     * @return The index, or -1 if the move is not in the list
      */
-    private boolean isSameMove(String from1, String to1, String from2, String to2) {
-        return from1.equals(from2) && to1.equals(to2);
+    private static int findMove(MoveList moves, BotMoveResponseDto response) {
+        List<String> path = response.getPath() == null ? List.of() : response.getPath();
+        for (int i = 0; i < moves.size(); i++) {
+            Move move = moves.toMove(i);
+            List<String> capturePath = move.getCapturePath() == null ? List.of() : move.getCapturePath();
+            if (move.getFromPosition().equals(response.getFrom()) && move.getToPosition().equals(response.getTo())
+                    && (path.isEmpty() || capturePath.equals(path))) {
+                return i;
+            }
+        }
+        return -1;
     }
 
     /**
-     * Update the move history tracking (keep track of last 2 moves for anti-repetition)
+     * Canonical hash of the request's position (see Symmetry): the same for a position
+     * and its colour-flipped twin. Requests with the same hash and search settings get
+     * the same move, once mapped back with Symmetry.restore, unless the game's history
+     * matters (see historyMatters).
      */
-    private void updateMoveHistory(String fromPos, String toPos) {
-        // Shift the history: current becomes last, last becomes second-last
-        secondLastFromPosition = lastFromPosition;
-        secondLastToPosition = lastToPosition;
-        
-        // Store current move as the new "last move"
-        lastFromPosition = fromPos;
-        lastToPosition = toPos;
+    public static long positionHash(BotMoveRequestDto request) {
+        return position(request).getCanonicalHash();
     }
 
     /**
-     * MinMax algorithm with alpha-beta pruning for optimal move calculation.
-     * This is the core AI decision-making algorithm.
-     * 
-     * @param board Current board state
-     * @param depth How many moves ahead to search
-     * @param alpha Best value that maximizing player can guarantee
-     * @param beta Best value that minimizing player can guarantee
-     * @param isMaximizing True if current player is maximizing (bot), false if minimizing (opponent)
-     * @param team The team color we're optimizing for
-     * @return Best move evaluation found at this depth
+     * Check whether the positions already reached in the game can change the move:
+     * true if a legal move leads back to one of them (see avoidRepetitions)
      */
-    private MoveEvaluation minimax(String[][] board, int depth, int alpha, int beta, 
-                                   boolean isMaximizing, Team team) {
-        
-        // Base case: reached maximum search depth or game is over
-        if (depth == 0 || isGameOver(board)) {
-            int boardScore = evaluateBoard(board, team);
-            return new MoveEvaluation(boardScore, null, null, null);
-        }
-
-        // Determine which team is moving at this level of the search tree
-        Team opponentTeam = (team == Team.WHITE) ? Team.BLACK : Team.WHITE;
-        Team currentTeam = isMaximizing ? team : opponentTeam;
-
-        if (isMaximizing) {
-            // Maximizing player: try to find the move with highest evaluation
-            MoveEvaluation bestEval = new MoveEvaluation(Integer.MIN_VALUE, null, null, null);
-            List<Move> possibleMoves = getAllPossibleMoves(board, currentTeam);
-
-            // If no moves available, this position is losing
-            if (possibleMoves.isEmpty()) {
-                return new MoveEvaluation(Integer.MIN_VALUE, null, null, null);
-            }
-
-            // Evaluate each possible move
-            for (Move move : possibleMoves) {
-                // Create copy of board and apply move to simulate the position
-                String[][] boardCopy = copyBoard(board);
-                applyMove(boardCopy, move);
-
-                // Recursively evaluate the resulting position
-                MoveEvaluation eval = minimax(boardCopy, depth - 1, alpha, beta, false, team);
-
-                // Calculate capture bonus: captures are generally good moves
-                int captureCount = 0;
-                if (move.getCapturePath() != null) {
-                    captureCount = move.getCapturePath().size();
-                }
+    public static boolean historyMatters(BotMoveRequestDto request) {
+        Set<Long> reached = historyHashes(request.getBoardHistory());
+        if (reached.isEmpty()) {
+            return false;
+        }
 
-                // Apply bonus for captures (encourage aggressive play)
-                int adjustedScore = eval.getScore() + (captureCount * 5);
-
-                // Update best evaluation if this move is better
-                if (adjustedScore > bestEval.getScore() ||
-                        (adjustedScore == bestEval.getScore() && captureCount > bestEval.getCaptureCount())) {
-                    bestEval = new MoveEvaluation(
-                            adjustedScore,
-                            move.getFromPosition(),
-                            move.getToPosition(),
-                            move.getCapturePath(),
-                            captureCount
-                    );
-                }
+        Bitboard board = position(request);
+        MoveList moves = new MoveList();
+        MoveGenerator.getAllPossibleMoves(board, board.getSideToMove(), moves);
+        for (int i = 0; i < moves.size(); i++) {
+            board.makeMove(moves, i);
+            boolean repeats = reached.contains(board.getHash());
+            board.unmakeMove();
 
-                // Alpha-beta pruning: if this branch is already worse than beta, skip remaining moves
-                alpha = Math.max(alpha, adjustedScore);
-                if (beta <= alpha) {
-                    break; // Beta cutoff
-                }
+            if (repeats) {
+                return true;
             }
+        }
+        return false;
+    }
 
-            return bestEval;
-        } else {
-            // Minimizing player: try to find the move with lowest evaluation (opponent's perspective)
-            MoveEvaluation bestEval = new MoveEvaluation(Integer.MAX_VALUE, null, null, null);
-            List<Move> possibleMoves = getAllPossibleMoves(board, currentTeam);
+    /**
+     * Build the compact position of a request, with the bot to move
+     */
+    private static Bitboard position(BotMoveRequestDto request) {
+        // Convert playerColor string to Team enum for internal processing
+        Team botTeam = request.getPlayerColor().equalsIgnoreCase("white") ? Team.WHITE : Team.BLACK;
+        return Bitboard.fromArray(request.getBoard(), botTeam);
+    }
 
-            // If no moves available, this position is winning for us
-            if (possibleMoves.isEmpty()) {
-                return new MoveEvaluation(Integer.MAX_VALUE, null, null, null);
-            }
+    /**
+     * Look up the position in the opening book
+     *
+     * @param moves List to generate the legal moves into
+     * @return The book move, or null if the position is not in book
+     */
+    private Move probeOpeningBook(Bitboard board, MoveList moves) {
+        int entry = openingBook.pick(board.getCanonicalHash());
+        if (entry < 0) {
+            return null;
+        }
 
-            // Evaluate each possible opponent move
-            for (Move move : possibleMoves) {
-                String[][] boardCopy = copyBoard(board);
-                applyMove(boardCopy, move);
+        // The book stores moves as seen in the canonical position
+        Team team = board.getSideToMove();
+        int from = Symmetry.canonicalSquare(team, openingBook.from(entry));
+        int to = Symmetry.canonicalSquare(team, openingBook.to(entry));
+        int captured = Symmetry.canonicalSquares(team, openingBook.captured(entry));
+
+        // Only play the book move if it is legal here (guards against hash collisions)
+        MoveGenerator.getAllPossibleMoves(board, team, moves);
+        for (int i = 0; i < moves.size(); i++) {
+            if (moves.from(i) == from && moves.to(i) == to && moves.captured(i) == captured) {
+                return moves.toMove(i);
+            }
+        }
+        return null;
+    }
 
-                MoveEvaluation eval = minimax(boardCopy, depth - 1, alpha, beta, true, team);
+    /**
+     * Pick the move with the best endgame table result: the fastest win, otherwise a draw,
+     * otherwise the slowest loss. Among equally good moves, one that does not repeat
+     * an earlier position of the game is preferred.
+     *
+     * @param moves List to generate the legal moves into
+     * @return The move, or null if the position is not in the tables
+     */
+    private Move probeTablebase(SearchContext ctx, MoveList moves) {
+        Bitboard board = ctx.board();
+        if (tablebase.probe(board) == EndgameTablebase.NOT_FOUND) {
+            return null;
+        }
 
-                // Calculate capture penalty from our perspective (opponent captures are bad for us)
-                int captureCount = 0;
-                if (move.getCapturePath() != null) {
-                    captureCount = move.getCapturePath().size();
-                }
+        MoveGenerator.getAllPossibleMoves(board, board.getSideToMove(), moves);
+        int bestIndex = -1;
+        int bestScore = -INFINITY;
+        boolean bestRepeats = true;
 
-                int adjustedScore = eval.getScore() - (captureCount * 5);
-
-                // Update best evaluation (from minimizing perspective)
-                if (adjustedScore < bestEval.getScore() ||
-                        (adjustedScore == bestEval.getScore() && captureCount > bestEval.getCaptureCount())) {
-                    bestEval = new MoveEvaluation(
-                            adjustedScore,
-                            move.getFromPosition(),
-                            move.getToPosition(),
-                            move.getCapturePath(),
-                            captureCount
-                    );
-                }
+        for (int i = 0; i < moves.size(); i++) {
+            board.makeMove(moves, i);
+            boolean repeats = ctx.isRepetition(board.getHash());
+            int result = board.pieces(board.getSideToMove()) == 0 ? 1 : tablebase.probe(board);
+            board.unmakeMove();
 
-                // Alpha-beta pruning from minimizing perspective
-                beta = Math.min(beta, adjustedScore);
-                if (beta <= alpha) {
-                    break; // Alpha cutoff
-                }
+            if (result == EndgameTablebase.NOT_FOUND) {
+                return null;
             }
 
-            return bestEval;
+            int score = -tablebaseScore(result);
+            if (score > bestScore || (score == bestScore && bestRepeats && !repeats)) {
+                bestIndex = i;
+                bestScore = score;
+                bestRepeats = repeats;
+            }
         }
+
+        return bestIndex < 0 ? null : moves.toMove(bestIndex);
     }
 
     /**
-     * Check if the game has ended (one side has no pieces left)
+     * Search score of an endgame table result, for the side to move.
+     * Faster wins and slower losses score higher; a loss with no move left
+     * scores like the end of the game in the search.
      */
-    private boolean isGameOver(String[][] board) {
-        boolean whiteExists = false;
-        boolean blackExists = false;
-
-        // Scan the entire board for remaining pieces
-        for (int i = 0; i < 8; i++) {
-            for (int j = 0; j < 8; j++) {
-                String piece = board[i][j];
-                if (piece == null || piece.isEmpty()) continue;
-
-                if (piece.equalsIgnoreCase("w")) {
-                    whiteExists = true;
-                } else if (piece.equalsIgnoreCase("b")) {
-                    blackExists = true;
-                }
+    private static int tablebaseScore(int result) {
+        if (result == EndgameTablebase.DRAW) {
+            return 0;
+        }
+        int score = WIN_SCORE - EndgameTablebase.distance(result);
+        return EndgameTablebase.isWin(result) ? score : -score;
+    }
 
-                // Early exit if both sides still have pieces
-                if (whiteExists && blackExists) return false;
+    /**
+     * Search every legal move of a position to the given depth and return their exact scores,
+     * in generation order. Used by tools that need more than the single best move.
+     *
+     * @param board Position to analyze (restored before returning)
+     * @param moves Receives the legal moves of the position
+     * @param depth How many moves ahead to search (at least 1)
+     * @return Score of each move for the side to move
+     */
+    public int[] analyzeMoves(Bitboard board, MoveList moves, int depth) {
+        MoveGenerator.getAllPossibleMoves(board, board.getSideToMove(), moves);
+        int[] scores = new int[moves.size()];
+
+        // No time limit: the context never aborts unless made abortable
+        SearchContext ctx = new SearchContext(board, depth, 0, Set.of());
+        ctx.setQuiescenceNodeLimit(config.getQuiescenceNodeLimit());
+        transpositionTable.newSearch();
+
+        // Deepen one ply at a time so each iteration benefits from the previous ones
+        for (int d = 1; d <= depth; d++) {
+            for (int i = 0; i < moves.size(); i++) {
+                scores[i] = searchRootMove(ctx, moves, i, d, -INFINITY);
             }
         }
+        totalNodes.add(ctx.nodes());
+        return scores;
+    }
 
-        // Game is over if one player has no pieces remaining
-        return true;
+    /**
+     * Collect the hashes of the positions listed in the request's board history.
+     * Entries that are not valid board strings are ignored.
+     */
+    private static Set<Long> historyHashes(List<String> boardHistory) {
+        Set<Long> hashes = new HashSet<>();
+        if (boardHistory == null) {
+            return hashes;
+        }
+
+        for (String entry : boardHistory) {
+            Bitboard position = Bitboard.fromHistoryString(entry);
+            if (position != null) {
+                hashes.add(position.getHash());
+            }
+        }
+        return hashes;
     }
 
     /**
-     * Evaluate the current board position from the perspective of the given team.
-     * Higher scores indicate better positions for the team.
-     * 
-     * Evaluation factors:
-     * - Material count (pieces vs opponent pieces)
-     * - Piece advancement (pieces closer to promotion)
-     * - Board control (pieces on edges are harder to capture)
-     * - King promotion bonuses
+     * Anti-repetition logic: remove the root moves leading back to a position already
+     * reached in the game, so the bot does not shuffle pieces back and forth forever.
+     * If every move repeats a position, all of them are kept.
+     *
+     * @return true if some moves were removed
      */
-    private int evaluateBoard(String[][] board, Team team) {
-        int whiteScore = 0;
-        int blackScore = 0;
-
-        // Evaluate each square on the board
-        for (int i = 0; i < 8; i++) {
-            for (int j = 0; j < 8; j++) {
-                String piece = board[i][j];
-                if (piece == null || piece.isEmpty()) continue;
-
-                // Base piece values: Pawns worth 10 points, Kings worth 20 points
-                // Kings are more valuable because they can move in all directions
-                int value = Character.isUpperCase(piece.charAt(0)) ? 20 : 10;
-
-                // Positional bonus: reward pieces that are advancing toward promotion
-                int positionalBonus = 0;
-                if (piece.toLowerCase().equals("w")) {
-                    // White pieces want to advance upward (toward row 0 for promotion)
-                    positionalBonus = (7 - i) * 2;
-                    
-                    // Additional bonus for edge pieces (harder for opponent to capture)
-                    if (j == 0 || j == 7) positionalBonus += 2;
-                    
-                    whiteScore += value + positionalBonus;
-                } else {
-                    // Black pieces want to advance downward (toward row 7 for promotion)
-                    positionalBonus = i * 2;
-                    
-                    // Additional bonus for edge pieces
-                    if (j == 0 || j == 7) positionalBonus += 2;
-                    
-                    blackScore += value + positionalBonus;
-                }
+    private boolean avoidRepetitions(SearchContext ctx, MoveList moves) {
+        Bitboard board = ctx.board();
+        boolean[] repeats = new boolean[moves.size()];
+        int repeating = 0;
+
+        for (int i = 0; i < moves.size(); i++) {
+            board.makeMove(moves, i);
+            repeats[i] = ctx.isRepetition(board.getHash());
+            board.unmakeMove();
+
+            if (repeats[i]) {
+                repeating++;
             }
         }
 
-        // Return relative score: positive favors our team, negative favors opponent
-        return (team == Team.WHITE) ? (whiteScore - blackScore) : (blackScore - whiteScore);
+        if (repeating == 0 || repeating == moves.size()) {
+            return false;
+        }
+
+        // Remove from the end so the remaining indexes stay valid
+        for (int i = moves.size() - 1; i >= 0; i--) {
+            if (repeats[i]) {
+                moves.remove(i);
+            }
+        }
+        return true;
     }
 
     /**
-     * Get all possible legal moves for the specified team.
-     * In checkers, captures are mandatory, so if captures are available,
-     * only capture moves are returned.
+     * Iterative deepening: search 1, 2, 3... moves ahead until the maximum depth
+     * is reached or the time budget runs out, and play the result of the deepest
+     * completed iteration. Each iteration searches the previous best move first,
+     * and the transposition table makes the repeated shallow work cheap.
+     *
+     * @param ctx Search state, with the bot to move
+     * @param maxDepth Deepest iteration to search
+     * @return Best move evaluation found (with null positions if there is no move to play)
      */
-    private List<Move> getAllPossibleMoves(String[][] board, Team team) {
-        List<Move> moves = new ArrayList<>();
-
-        // Check for forced captures first (captures are mandatory in checkers)
-        List<Move> captures = getAllCaptures(board, team);
-        if (!captures.isEmpty()) {
-            return captures; // If captures available, they are the only legal moves
-        }
-
-        // If no captures available, generate normal moves
-        char pieceChar = (team == Team.WHITE) ? 'w' : 'b';
-
-        // Scan board for pieces of the current team
-        for (int i = 0; i < 8; i++) {
-            for (int j = 0; j < 8; j++) {
-                String piece = board[i][j];
-                if (piece == null || piece.isEmpty()) continue;
-
-                // Check if this piece belongs to the current team
-                if (piece.toLowerCase().charAt(0) != pieceChar) continue;
-
-                boolean isKing = Character.isUpperCase(piece.charAt(0));
-                String fromPos = i + "" + j;
-
-                // Determine valid movement directions based on piece type
-                int[][] directions;
-                if (isKing) {
-                    // Kings can move in all four diagonal directions
-                    directions = new int[][]{{1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
-                } else {
-                    // Regular pieces can only move forward
-                    if (team == Team.WHITE) {
-                        directions = new int[][]{{-1, 1}, {-1, -1}}; // White moves up (decreasing row)
-                    } else {
-                        directions = new int[][]{{1, 1}, {1, -1}};   // Black moves down (increasing row)
-                    }
-                }
+    private MoveEvaluation iterativeDeepening(SearchContext ctx, int maxDepth) {
+        // The first iteration always completes, so there is always a move to play
+        MoveEvaluation bestMove = searchRoot(ctx, 1);
+        int completedDepth = 1;
+        ctx.setAbortable(true);
+
+        for (int depth = 2; depth <= maxDepth; depth++) {
+            // Nothing left to decide: no move, a single legal move, or a won/lost position
+            if (bestMove.getFromPosition() == null || ctx.rootMoveCount() == 1
+                    || Math.abs(bestMove.getScore()) >= WIN_SCORE / 2) {
+                break;
+            }
 
-                // Check each possible direction for valid moves
-                for (int[] dir : directions) {
-                    int newRow = i + dir[0];
-                    int newCol = j + dir[1];
-
-                    // Ensure the destination is within board bounds
-                    if (newRow >= 0 && newRow < 8 && newCol >= 0 && newCol < 8) {
-                        // Ensure the destination square is empty
-                        if (board[newRow][newCol] == null || board[newRow][newCol].isEmpty()) {
-                            String toPos = newRow + "" + newCol;
-                            moves.add(new Move(fromPos, toPos, null));
-                        }
-                    }
-                }
+            // The next iteration usually costs more than all previous ones together:
+            // don't start it if it is unlikely to finish in time
+            if (ctx.elapsedMs() * 2 > ctx.timeLimitMs()) {
+                break;
             }
+
+            MoveEvaluation result = searchRoot(ctx, depth);
+
+            // Time ran out in the middle of the iteration: its result is incomplete
+            if (ctx.isAborted()) {
+                break;
+            }
+
+            bestMove = result;
+            completedDepth = depth;
         }
 
-        return moves;
+        ctx.setCompletedDepth(completedDepth);
+        totalNodes.add(ctx.nodes());
+        System.out.println("Bot search reached depth " + completedDepth + " (" + ctx.nodes() + " nodes, "
+                           + ctx.quiescenceNodes() + " in quiescence, " + ctx.elapsedMs() + " ms)");
+        return bestMove;
     }
 
     /**
-     * Get all possible capture moves for the specified team.
-     * Returns only the captures that result in the maximum number of pieces captured
-     * (following standard checkers rules for mandatory maximum captures).
+     * Search the root position and return the best move for the side to move.
+     * Same search as minimax, but also keeps track of the move behind the best score.
+     *
+     * @param ctx Search state, with the bot to move
+     * @param depth How many moves ahead to search
+     * @return Best move evaluation found (with null positions if there is no move to play),
+     *         or null if the search was aborted
      */
-    private List<Move> getAllCaptures(String[][] board, Team team) {
-        List<Move> allCaptures = new ArrayList<>();
-
-        // Identify piece characters for current team and opponent
-        char pieceChar = (team == Team.WHITE) ? 'w' : 'b';
-        char opponentChar = (team == Team.WHITE) ? 'b' : 'w';
-
-        // Scan board for pieces that can make captures
-        for (int i = 0; i < 8; i++) {
-            for (int j = 0; j < 8; j++) {
-                String piece = board[i][j];
-                if (piece == null || piece.isEmpty()) continue;
-
-                // Check if this piece belongs to the current team
-                if (piece.toLowerCase().charAt(0) != pieceChar) continue;
-
-                boolean isKing = Character.isUpperCase(piece.charAt(0));
-                String fromPos = i + "" + j;
-
-                // Determine capture directions based on piece type
-                int[][] directions;
-                if (isKing) {
-                    // Kings can capture in all diagonal directions
-                    directions = new int[][]{{1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
-                } else {
-                    // Regular pieces can only capture in forward directions
-                    if (team == Team.WHITE) {
-                        directions = new int[][]{{-1, 1}, {-1, -1}}; // White captures upward
-                    } else {
-                        directions = new int[][]{{1, 1}, {1, -1}};   // Black captures downward
-                    }
-                }
+    private MoveEvaluation searchRoot(SearchContext ctx, int depth) {
+        Bitboard board = ctx.board();
+        Team team = board.getSideToMove();
+        ctx.visitNode();
+
+        // Nothing to search: the game is already over
+        if (isGameOver(board)) {
+            return new MoveEvaluation(Evaluator.evaluate(board, team), null, null, null);
+        }
+
+        MoveList moves = ctx.moves(depth);
+        MoveGenerator.getAllPossibleMoves(board, team, moves);
+        boolean filtered = avoidRepetitions(ctx, moves);
+        ctx.setRootMoveCount(moves.size());
+
+        // If no moves available, this position is losing
+        if (moves.isEmpty()) {
+            return new MoveEvaluation(-WIN_SCORE, null, null, null);
+        }
 
-                // Check each direction for possible captures
-                for (int[] dir : directions) {
-                    int captureRow = i + dir[0];      // Position of piece to capture
-                    int captureCol = j + dir[1];
-                    int landRow = i + 2 * dir[0];     // Landing position after capture
-                    int landCol = j + 2 * dir[1];
-
-                    // Ensure all positions are within board bounds
-                    if (captureRow < 0 || captureRow >= 8 || captureCol < 0 || captureCol >= 8 ||
-                            landRow < 0 || landRow >= 8 || landCol < 0 || landCol >= 8) {
-                        continue;
-                    }
-
-                    // Check that there's an opponent piece to capture
-                    String capturePiece = board[captureRow][captureCol];
-                    if (capturePiece == null || capturePiece.isEmpty()) continue;
-                    if (capturePiece.toLowerCase().charAt(0) != opponentChar) continue;
-
-                    // Check that the landing square is empty
-                    if (board[landRow][landCol] != null && !board[landRow][landCol].isEmpty()) continue;
-
-                    // This is a valid capture - add it to the list
-                    String toPos = landRow + "" + landCol;
-                    List<String> path = new ArrayList<>();
-                    path.add(toPos);
-
-                    // Simulate the capture to check for additional consecutive captures
-                    String[][] boardCopy = copyBoard(board);
-                    boardCopy[landRow][landCol] = boardCopy[i][j];      // Move piece to landing position
-                    boardCopy[i][j] = "";                              // Remove piece from original position
-                    boardCopy[captureRow][captureCol] = "";             // Remove captured piece
-
-                    // Handle king promotion during capture sequence
-                    if (!isKing) {
-                        if ((team == Team.WHITE && landRow == 0) || (team == Team.BLACK && landRow == 7)) {
-                            boardCopy[landRow][landCol] = boardCopy[landRow][landCol].toUpperCase();
-                            isKing = true; // Piece is now promoted to king
-                        }
-                    }
-
-                    // Recursively search for additional captures from the landing position
-                    List<List<String>> subPaths = new ArrayList<>();
-                    findMultipleCaptures(boardCopy, team, landRow, landCol, isKing, subPaths, new HashSet<>());
-
-                    if (subPaths.isEmpty()) {
-                        // No additional captures possible - single capture move
-                        allCaptures.add(new Move(fromPos, toPos, path));
-                    } else {
-                        // Additional captures found - create moves for each complete capture sequence
-                        for (List<String> subPath : subPaths) {
-                            List<String> fullPath = new ArrayList<>(path);
-                            fullPath.addAll(subPath);
-                            allCaptures.add(new Move(fromPos, fullPath.get(fullPath.size() - 1), fullPath));
-                        }
-                    }
+        // Search the best move of the previous iteration first: it is usually still the best,
+        // and a good first move makes alpha-beta prune the rest much faster
+        scoreMoves(ctx, moves, TranspositionTable.MISS);
+        for (int i = 0; i < moves.size(); i++) {
+            if (ctx.isBestMove(moves, i)) {
+                moves.setScore(i, TT_MOVE_SCORE);
+            }
+        }
+        moves.sortByScore();
+
+        // The first (usually best) move is searched alone, so the others start with a good alpha bound.
+        // A move that fails low (scores no more than the alpha it was searched with) only gets an
+        // upper bound, which can tie the best score without being as good: it is never picked.
+        int[] scores = new int[moves.size()];
+        boolean[] exact = new boolean[moves.size()];
+        scores[0] = searchRootMove(ctx, moves, 0, depth, -INFINITY);
+        exact[0] = true;
+        if (ctx.isAborted()) {
+            return null;
+        }
+
+        if (pool != null && depth >= PARALLEL_MIN_DEPTH && moves.size() > 1) {
+            searchRootMovesParallel(ctx, moves, scores, exact, depth);
+        } else {
+            int alpha = scores[0];
+            for (int i = 1; i < moves.size(); i++) {
+                scores[i] = searchRootMove(ctx, moves, i, depth, alpha);
+                if (ctx.isAborted()) {
+                    break;
                 }
+                exact[i] = scores[i] > alpha;
+                alpha = Math.max(alpha, scores[i]);
             }
         }
 
-        // If no captures found, return empty list
-        if (allCaptures.isEmpty()) {
-            return allCaptures;
+        if (ctx.isAborted()) {
+            return null;
         }
 
-        // Find the maximum number of captures in any single move sequence
-        // (standard checkers rule: must make the move that captures the most pieces)
-        int maxCaptures = 0;
-        for (Move move : allCaptures) {
-            int captureCount = 0;
-            if (move.getCapturePath() != null) {
-                captureCount = move.getCapturePath().size();
+        int bestIndex = 0;
+        int bestScore = scores[0];
+        int bestCaptureCount = moves.captureCount(0);
+
+        for (int i = 1; i < moves.size(); i++) {
+            if (!exact[i]) {
+                continue;
+            }
+            // Update best move, preferring bigger captures on equal scores
+            int captureCount = moves.captureCount(i);
+            if (scores[i] > bestScore || (scores[i] == bestScore && captureCount > bestCaptureCount)) {
+                bestIndex = i;
+                bestScore = scores[i];
+                bestCaptureCount = captureCount;
             }
-            maxCaptures = Math.max(maxCaptures, captureCount);
         }
 
-        // Return only the captures that achieve the maximum capture count
-        List<Move> bestCaptures = new ArrayList<>();
-        for (Move move : allCaptures) {
-            int captureCount = 0;
-            if (move.getCapturePath() != null) {
-                captureCount = move.getCapturePath().size();
-            }
-            if (captureCount == maxCaptures) {
-                bestCaptures.add(move);
+        // A score computed without some moves is specific to this game's history: don't share it
+        if (!filtered) {
+            storeResult(ctx, bestScore, depth, TranspositionTable.EXACT, moves, bestIndex);
+        }
+        ctx.setBestMove(moves, bestIndex);
+
+        Move best = moves.toMove(bestIndex);
+        return new MoveEvaluation(bestScore, best.getFromPosition(), best.getToPosition(),
+                                  best.getCapturePath(), bestCaptureCount);
+    }
+
+    /**
+     * Search one root move.
+     *
+     * @param alpha Best score already guaranteed by other root moves
+     * @return Score of the move for the side to move at the root
+     */
+    private int searchRootMove(SearchContext ctx, MoveList moves, int index, int depth, int alpha) {
+        Bitboard board = ctx.board();
+
+        board.makeMove(moves, index);
+        int score = -minimax(ctx, depth - 1, -INFINITY, -alpha);
+        board.unmakeMove();
+
+        return score;
+    }
+
+    /**
+     * Search all root moves but the first in parallel, one task per move.
+     * Each task works on its own copy of the position; they share the transposition
+     * table and the best score found so far, which tightens the window of the
+     * tasks that start later. Tasks run in any order, so each one records whether its
+     * score beat the alpha it started with (exact) or failed low (an upper bound).
+     */
+    private void searchRootMovesParallel(SearchContext ctx, MoveList moves, int[] scores, boolean[] exact, int depth) {
+        AtomicInteger sharedAlpha = new AtomicInteger(scores[0]);
+        List<SearchContext> forks = new ArrayList<>();
+        List<Callable<Void>> tasks = new ArrayList<>();
+
+        for (int i = 1; i < moves.size(); i++) {
+            final int index = i;
+            SearchContext fork = ctx.fork();
+            forks.add(fork);
+            tasks.add(() -> {
+                int alpha = sharedAlpha.get();
+                int score = searchRootMove(fork, moves, index, depth, alpha);
+                scores[index] = score;
+                exact[index] = score > alpha;
+                sharedAlpha.accumulateAndGet(score, Math::max);
+                return null;
+            });
+        }
+
+        try {
+            for (Future<Void> result : pool.invokeAll(tasks)) {
+                result.get();
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Bot search interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Parallel bot search failed", e.getCause());
         }
 
-        return bestCaptures;
+        for (SearchContext fork : forks) {
+            ctx.join(fork);
+        }
     }
 
     /**
-     * Recursively find multiple consecutive captures starting from a given position.
-     * This handles the checkers rule where a piece must continue capturing if possible.
-     * 
-     * @param board Current board state after the previous capture
-     * @param team Team making the captures
-     * @param row Current row position of the capturing piece
-     * @param col Current column position of the capturing piece
-     * @param isKing Whether the capturing piece is a king
-     * @param allPaths Output list to store all possible capture sequences
-     * @param capturedPositions Set of positions already captured in this sequence (to avoid double-capture)
+     * MinMax algorithm with alpha-beta pruning, in negamax form:
+     * scores are always from the perspective of the side to move, and the
+     * opponent's best reply is the negation of our worst outcome.
+     * Moves are made and unmade on the same board, so no node allocates.
+     *
+     * Results are cached in the transposition table, so positions reached
+     * through different move orders are only searched once.
+     *
+     * @param ctx Search state (the board is restored before returning)
+     * @param depth How many moves ahead to search
+     * @param alpha Best score the side to move can already guarantee
+     * @param beta Best score the opponent can already guarantee (as seen by the side to move)
+     * @return Score of the position for the side to move (meaningless if the search was aborted)
      */
-    private void findMultipleCaptures(String[][] board, Team team, int row, int col, boolean isKing,
-                                      List<List<String>> allPaths, Set<String> capturedPositions) {
+    private int minimax(SearchContext ctx, int depth, int alpha, int beta) {
+        Bitboard board = ctx.board();
+        Team team = board.getSideToMove();
 
-        // Identify opponent pieces
-        char opponentChar = (team == Team.WHITE) ? 'b' : 'w';
+        // Out of time: unwind without searching further
+        if (ctx.visitNode()) {
+            return 0;
+        }
 
-        // Determine valid capture directions for this piece
-        int[][] directions;
-        if (isKing) {
-            // Kings can capture in all diagonal directions
-            directions = new int[][]{{1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
-        } else {
-            // Regular pieces can only capture in forward directions
-            if (team == Team.WHITE) {
-                directions = new int[][]{{-1, 1}, {-1, -1}}; // White captures upward
-            } else {
-                directions = new int[][]{{1, 1}, {1, -1}};   // Black captures downward
+        // Few pieces left: the endgame tables know the exact result
+        EndgameTablebase tablebase = ctx.tablebase();
+        if (tablebase != null) {
+            int result = tablebase.probe(board);
+            if (result != EndgameTablebase.NOT_FOUND) {
+                return tablebaseScore(result);
             }
         }
 
-        boolean foundCapture = false;
+        // Base case: game is over, or maximum search depth reached (captures still pending are
+        // played out by the quiescence search, when enabled)
+        if (isGameOver(board)) {
+            return Evaluator.evaluate(board, team);
+        }
+        if (depth == 0) {
+            if (ctx.quiescenceNodeLimit() == 0) {
+                return Evaluator.evaluate(board, team);
+            }
+            ctx.startQuiescence();
+            return quiescence(ctx, 0, alpha, beta);
+        }
 
-        // Check each direction for additional capture opportunities
-        for (int[] dir : directions) {
-            int captureRow = row + dir[0];      // Position of piece to capture
-            int captureCol = col + dir[1];
-            int landRow = row + 2 * dir[0];     // Landing position after capture
-            int landCol = col + 2 * dir[1];
+        // Reuse a previous result for this position if it was searched deep enough
+        long entry = transpositionTable.probe(ctx.transpositionKey(board));
+        if (entry != TranspositionTable.MISS && TranspositionTable.depth(entry) >= depth) {
+            int storedScore = TranspositionTable.score(entry);
+            switch (TranspositionTable.bound(entry)) {
+                case TranspositionTable.EXACT: return storedScore;
+                case TranspositionTable.LOWER_BOUND: alpha = Math.max(alpha, storedScore); break;
+                case TranspositionTable.UPPER_BOUND: beta = Math.min(beta, storedScore); break;
+            }
+            if (beta <= alpha) {
+                return storedScore;
+            }
+        }
 
-            // Ensure positions are within board bounds
-            if (captureRow < 0 || captureRow >= 8 || captureCol < 0 || captureCol >= 8 ||
-                    landRow < 0 || landRow >= 8 || landCol < 0 || landCol >= 8) {
-                continue;
+        MoveList moves = ctx.moves(depth);
+        MoveGenerator.getAllPossibleMoves(board, team, moves);
+
+        // If no moves available, this position is losing for the side to move
+        if (moves.isEmpty()) {
+            return -WIN_SCORE;
+        }
+
+        int originalAlpha = alpha;
+        int bestScore = -INFINITY;
+        int bestIndex = 0;
+
+        // Try the most promising moves first, so cutoffs happen as early as possible
+        scoreMoves(ctx, moves, entry);
+
+        for (int i = 0; i < moves.size(); i++) {
+            moves.pickNext(i);
+
+            board.makeMove(moves, i);
+            int score = -minimax(ctx, depth - 1, -beta, -alpha);
+            board.unmakeMove();
+
+            // Scores of an aborted search are not reliable: don't use or store them
+            if (ctx.isAborted()) {
+                return 0;
             }
 
-            String capturePos = captureRow + "" + captureCol;
-            String capturePiece = board[captureRow][captureCol];
-            
-            // Validate this capture opportunity
-            if (capturePiece == null || capturePiece.isEmpty()) continue;                    // No piece to capture
-            if (capturePiece.toLowerCase().charAt(0) != opponentChar) continue;             // Not an opponent piece
-            if (capturedPositions.contains(capturePos)) continue;                           // Already captured this piece
-            if (board[landRow][landCol] != null && !board[landRow][landCol].isEmpty()) continue; // Landing square occupied
-
-            String landPos = landRow + "" + landCol;
-            
-            // Create updated capture tracking set
-            Set<String> newCapturedPositions = new HashSet<>(capturedPositions);
-            newCapturedPositions.add(capturePos);
-
-            // Simulate this capture
-            String[][] boardCopy = copyBoard(board);
-            boardCopy[landRow][landCol] = boardCopy[row][col]; // Move piece to landing position
-            boardCopy[row][col] = "";                          // Remove piece from current position
-            boardCopy[captureRow][captureCol] = "";            // Remove captured piece
-
-            // Check for king promotion during the capture sequence
-            boolean becameKing = false;
-            if (!isKing) {
-                if ((team == Team.WHITE && landRow == 0) || (team == Team.BLACK && landRow == 7)) {
-                    boardCopy[landRow][landCol] = boardCopy[landRow][landCol].toUpperCase();
-                    becameKing = true;
+            if (score > bestScore) {
+                bestScore = score;
+                bestIndex = i;
+            }
+
+            // Alpha-beta pruning: the opponent will never allow this line
+            alpha = Math.max(alpha, score);
+            if (beta <= alpha) {
+                // Remember quiet moves that refute a line, they are likely to refute its siblings too
+                if (moves.captureCount(i) == 0) {
+                    ctx.addCutoff(board.getPly(), team == Team.WHITE, moves.from(i), moves.to(i), depth);
                 }
+                break;
             }
+        }
 
-            // Recursively search for additional captures from the new position
-            List<List<String>> subPaths = new ArrayList<>();
-            findMultipleCaptures(boardCopy, team, landRow, landCol, isKing || becameKing, subPaths, newCapturedPositions);
+        // A score outside the window is only a bound on the true value
+        int bound = bestScore <= originalAlpha ? TranspositionTable.UPPER_BOUND
+                  : bestScore >= beta ? TranspositionTable.LOWER_BOUND
+                  : TranspositionTable.EXACT;
+        storeResult(ctx, bestScore, depth, bound, moves, bestIndex);
 
-            if (subPaths.isEmpty()) {
-                // No further captures possible - end the sequence here
-                List<String> path = new ArrayList<>();
-                path.add(landPos);
-                allPaths.add(path);
-            } else {
-                // Additional captures found - extend each sub-sequence with this capture
-                for (List<String> subPath : subPaths) {
-                    List<String> fullPath = new ArrayList<>();
-                    fullPath.add(landPos);
-                    fullPath.addAll(subPath);
-                    allPaths.add(fullPath);
-                }
+        return bestScore;
+    }
+
+    /**
+     * Quiescence search: below the search horizon, keep playing the captures until the
+     * position is quiet, so no leaf is evaluated in the middle of an exchange.
+     * Captures are mandatory, so a side that can capture must: there is no "stand pat"
+     * score as in chess, and only quiet positions are evaluated. Once the leaf's node
+     * budget is spent (see SearchConfig), positions are evaluated as they are.
+     *
+     * @param ply Captures played since the leaf
+     * @return Score of the position for the side to move (meaningless if the search was aborted)
+     */
+    private int quiescence(SearchContext ctx, int ply, int alpha, int beta) {
+        Bitboard board = ctx.board();
+        Team team = board.getSideToMove();
+
+        // Out of time: unwind without searching further
+        if (ctx.visitNode()) {
+            return 0;
+        }
+
+        // Captures often lead into the endgame tables (the leaf itself was probed by minimax)
+        EndgameTablebase tablebase = ctx.tablebase();
+        if (ply > 0 && tablebase != null) {
+            int result = tablebase.probe(board);
+            if (result != EndgameTablebase.NOT_FOUND) {
+                return tablebaseScore(result);
             }
+        }
 
-            foundCapture = true;
+        if (isGameOver(board)) {
+            return Evaluator.evaluate(board, team);
         }
 
-        // If no additional captures were found, add an empty path to indicate end of sequence
-        if (!foundCapture) {
-            allPaths.add(new ArrayList<>());
+        MoveList moves = ctx.quiescenceMoves(ply);
+        MoveGenerator.getAllCaptures(board, team, moves);
+        if (moves.isEmpty() || ply == SearchContext.MAX_QUIESCENCE_PLY || !ctx.spendQuiescenceNode()) {
+            return Evaluator.evaluate(board, team);
         }
+
+        int bestScore = -INFINITY;
+        for (int i = 0; i < moves.size(); i++) {
+            board.makeMove(moves, i);
+            int score = -quiescence(ctx, ply + 1, -beta, -alpha);
+            board.unmakeMove();
+
+            if (ctx.isAborted()) {
+                return 0;
+            }
+
+            bestScore = Math.max(bestScore, score);
+            alpha = Math.max(alpha, score);
+            if (beta <= alpha) {
+                break;
+            }
+        }
+        return bestScore;
+    }
+
+    /**
+     * Store a search result in the transposition table.
+     * Entries are keyed by canonical hash, so a position and its colour-flipped twin
+     * share them: the best move is stored as seen in the canonical position.
+     * Searches with different quiescence or endgame table settings keep separate entries.
+     */
+    private void storeResult(SearchContext ctx, int score, int depth, int bound, MoveList moves, int bestIndex) {
+        Bitboard board = ctx.board();
+        Team team = board.getSideToMove();
+        transpositionTable.store(ctx.transpositionKey(board), score, depth, bound,
+                                 Symmetry.canonicalSquare(team, moves.from(bestIndex)),
+                                 Symmetry.canonicalSquare(team, moves.to(bestIndex)));
     }
 
     /**
-     * Create a deep copy of the board to avoid modifying the original during simulations.
-     * This is essential for the minimax algorithm which needs to test moves without
-     * permanently altering the game state.
+     * Assign move ordering scores:
+     * 1. the best move stored in the transposition table for this position
+     * 2. captures, bigger ones first
+     * 3. killer moves of this ply
+     * 4. other quiet moves by history score
+     *
+     * @param entry Transposition table entry of the position, or MISS
      */
-    private String[][] copyBoard(String[][] board) {
-        String[][] copy = new String[8][8];
-        for (int i = 0; i < 8; i++) {
-            for (int j = 0; j < 8; j++) {
-                copy[i][j] = board[i][j];
+    private void scoreMoves(SearchContext ctx, MoveList moves, long entry) {
+        Bitboard board = ctx.board();
+        int ply = board.getPly();
+        boolean white = board.getSideToMove() == Team.WHITE;
+        boolean hasTtMove = entry != TranspositionTable.MISS && TranspositionTable.hasMove(entry);
+        int ttFrom = hasTtMove ? Symmetry.canonicalSquare(board.getSideToMove(), TranspositionTable.moveFrom(entry)) : -1;
+        int ttTo = hasTtMove ? Symmetry.canonicalSquare(board.getSideToMove(), TranspositionTable.moveTo(entry)) : -1;
+
+        for (int i = 0; i < moves.size(); i++) {
+            int from = moves.from(i);
+            int to = moves.to(i);
+            int score;
+
+            if (hasTtMove && from == ttFrom && to == ttTo) {
+                score = TT_MOVE_SCORE;
+            } else if (moves.captureCount(i) > 0) {
+                score = CAPTURE_SCORE + moves.captureCount(i);
+            } else {
+                int killerRank = ctx.killerRank(ply, from, to);
+                score = killerRank > 0 ? KILLER_SCORE - killerRank : ctx.historyScore(white, from, to);
             }
+
+            moves.setScore(i, score);
         }
-        return copy;
     }
 
     /**
-     * Apply a move to the board, handling both normal moves and capture sequences.
-     * This method modifies the board state to reflect the completed move.
-     * 
-     * @param board The board to modify
-     * @param move The move to apply (contains from/to positions and capture path)
+     * Check if the game has ended (one side has no pieces left)
      */
-    private void applyMove(String[][] board, Move move) {
-        // Parse move coordinates
-        int fromRow = Integer.parseInt(move.getFromPosition().substring(0, 1));
-        int fromCol = Integer.parseInt(move.getFromPosition().substring(1, 2));
-        int toRow = Integer.parseInt(move.getToPosition().substring(0, 1));
-        int toCol = Integer.parseInt(move.getToPosition().substring(1, 2));
-
-        // Move the piece to its final destination
-        String piece = board[fromRow][fromCol];
-        board[toRow][toCol] = piece;
-        board[fromRow][fromCol] = "";
-
-        // Handle captures along the move path
-        if (move.getCapturePath() != null && !move.getCapturePath().isEmpty()) {
-            // Handle multiple capture sequence
-            String currentPos = move.getFromPosition();
-
-            for (String nextPos : move.getCapturePath()) {
-                // Calculate positions involved in this capture step
-                int curRow = Integer.parseInt(currentPos.substring(0, 1));
-                int curCol = Integer.parseInt(currentPos.substring(1, 2));
-                int nextRow = Integer.parseInt(nextPos.substring(0, 1));
-                int nextCol = Integer.parseInt(nextPos.substring(1, 2));
-
-                // Remove the captured piece (located between current and next positions)
-                int capturedRow = (curRow + nextRow) / 2;
-                int capturedCol = (curCol + nextCol) / 2;
-                board[capturedRow][capturedCol] = "";
-
-                currentPos = nextPos; // Move to next position in the capture sequence
-            }
-        } else if (Math.abs(fromRow - toRow) == 2 && Math.abs(fromCol - toCol) == 2) {
-            // Handle single capture (piece moved diagonally by 2 squares)
-            int capturedRow = (fromRow + toRow) / 2;
-            int capturedCol = (fromCol + toCol) / 2;
-            board[capturedRow][capturedCol] = "";
-        }
-
-        // Handle king promotion when pieces reach the opposite end of the board
-        if (piece.equals("w") && toRow == 0) {
-            board[toRow][toCol] = "W"; // Promote white piece to king
-        } else if (piece.equals("b") && toRow == 7) {
-            board[toRow][toCol] = "B"; // Promote black piece to king
-        }
+    private boolean isGameOver(Bitboard board) {
+        return board.getWhite() == 0 || board.getBlack() == 0;
     }
-}
\ No newline at end of file
+}
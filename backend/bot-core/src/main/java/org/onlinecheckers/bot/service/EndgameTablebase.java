@@ -0,0 +1,359 @@
+package org.onlinecheckers.bot.service;
+
+import org.onlinecheckers.bot.model.Bitboard;
+import org.onlinecheckers.bot.model.Team;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Exact results of the positions with few pieces left, computed by retrograde analysis
+ * (see tools.TablebaseGenerator).
+ *
+ * Positions are grouped by material (white men, white kings, black men, black kings),
+ * and every position of a material group has a fixed index, so a lookup is a few
+ * bit operations and one byte read. Files on disk are memory mapped; the default
+ * tables are bundled as a classpath resource.
+ *
+ * Each position is stored as one byte: 0 for a draw, otherwise the number of plies
+ * to the end of the game plus one. With best play the game ends after an odd number
+ * of plies when the side to move wins, and an even number when it loses.
+ *
+ * File layout (big-endian):
+ * - header: magic "OCTB", format version, maximum piece count, material group count (4 ints)
+ * - material groups: white men, white kings, black men, black kings (4 bytes), data offset (long)
+ * - data: one byte per position of each group
+ */
+public class EndgameTablebase {
+
+    public static final int MAGIC = 0x4F435442; // "OCTB"
+    public static final int VERSION = 1;
+    public static final int HEADER_BYTES = 16;
+    public static final int GROUP_BYTES = 12;
+
+    // Classpath location of the tables bundled with bot-core
+    public static final String DEFAULT_RESOURCE = "/endgame-tablebase.bin";
+
+    // Probe results
+    public static final int NOT_FOUND = -1;
+    public static final int DRAW = 0;
+
+    // Men never stand on their own promotion row, so each side's men have 28 possible squares
+    private static final int MAN_SQUARES = 28;
+
+    // Binomial coefficients for the combinatorial position index
+    private static final long[][] BINOMIAL = new long[Bitboard.SQUARES + 1][Bitboard.SQUARES + 1];
+
+    static {
+        for (int n = 0; n <= Bitboard.SQUARES; n++) {
+            BINOMIAL[n][0] = 1;
+            for (int k = 1; k <= n; k++) {
+                BINOMIAL[n][k] = BINOMIAL[n - 1][k - 1] + BINOMIAL[n - 1][k];
+            }
+        }
+    }
+
+    private final ByteBuffer buffer;
+    private final int maxPieces;
+
+    // Data offset of each material group (see groupIndex), -1 for groups not in the file
+    private final int[] offsets;
+
+    private EndgameTablebase(ByteBuffer buffer) {
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("Not an endgame tablebase file");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IllegalArgumentException("Unsupported endgame tablebase version: " + buffer.getInt(4));
+        }
+
+        this.buffer = buffer;
+        this.maxPieces = buffer.getInt(8);
+        int groups = buffer.getInt(12);
+        if (maxPieces < 2 || maxPieces > Bitboard.SQUARES || buffer.capacity() < HEADER_BYTES + (long) groups * GROUP_BYTES) {
+            throw new IllegalArgumentException("Invalid endgame tablebase header");
+        }
+
+        int size = maxPieces + 1;
+        this.offsets = new int[size * size * size * size];
+        Arrays.fill(offsets, -1);
+
+        for (int g = 0; g < groups; g++) {
+            int position = HEADER_BYTES + g * GROUP_BYTES;
+            int whiteMen = buffer.get(position);
+            int whiteKings = buffer.get(position + 1);
+            int blackMen = buffer.get(position + 2);
+            int blackKings = buffer.get(position + 3);
+            long offset = buffer.getLong(position + 4);
+
+            if (whiteMen + whiteKings + blackMen + blackKings > maxPieces
+                    || offset + positionCount(whiteMen, whiteKings, blackMen, blackKings) > buffer.capacity()) {
+                throw new IllegalArgumentException("Truncated endgame tablebase file");
+            }
+            offsets[groupIndex(whiteMen, whiteKings, blackMen, blackKings)] = (int) offset;
+        }
+    }
+
+    /**
+     * Memory-map a tablebase file
+     */
+    public static EndgameTablebase open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new EndgameTablebase(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * The tables bundled with bot-core. They are read once and shared by every BotAlgorithm of the JVM.
+     *
+     * @return The tables, or null if the resource is missing
+     */
+    public static EndgameTablebase loadDefault() throws IOException {
+        if (Bundled.ERROR != null) {
+            throw new IOException(Bundled.ERROR);
+        }
+        return Bundled.TABLES;
+    }
+
+    private static EndgameTablebase readDefault() throws IOException {
+        try (InputStream in = EndgameTablebase.class.getResourceAsStream(DEFAULT_RESOURCE)) {
+            if (in == null) {
+                return null;
+            }
+            return new EndgameTablebase(ByteBuffer.wrap(in.readAllBytes()));
+        }
+    }
+
+    // Holder of the bundled tables, read on first use. Native images initialize it at build
+    // time (see the bot-lambda configuration), so the tables are part of the image heap.
+    private static final class Bundled {
+        static final EndgameTablebase TABLES;
+        static final String ERROR;
+
+        static {
+            EndgameTablebase tables = null;
+            String error = null;
+            try {
+                tables = readDefault();
+            } catch (IOException | IllegalArgumentException e) {
+                error = e.getMessage();
+            }
+            TABLES = tables;
+            ERROR = error;
+        }
+    }
+
+    /**
+     * Largest number of pieces on the board covered by the tables
+     */
+    public int maxPieces() {
+        return maxPieces;
+    }
+
+    /**
+     * Look up the exact result of a position
+     *
+     * @return DRAW, the stored result (decode it with isWin/distance), or NOT_FOUND
+     *         if the position has too many pieces or a side has none
+     */
+    public int probe(Bitboard board) {
+        int white = board.getWhite();
+        int black = board.getBlack();
+        if (white == 0 || black == 0 || Integer.bitCount(white | black) > maxPieces) {
+            return NOT_FOUND;
+        }
+
+        // Men on their promotion row only come from hand-made boards: they have no index
+        int kings = board.getKings();
+        if ((white & ~kings & 0x0000000F) != 0 || (black & ~kings & 0xF0000000) != 0) {
+            return NOT_FOUND;
+        }
+
+        int offset = offsets[groupIndex(Integer.bitCount(white & ~kings), Integer.bitCount(white & kings),
+                                        Integer.bitCount(black & ~kings), Integer.bitCount(black & kings))];
+        if (offset < 0) {
+            return NOT_FOUND;
+        }
+        return buffer.get(offset + (int) index(white, black, kings, board.getSideToMove())) & 0xFF;
+    }
+
+    /**
+     * Check whether a stored result is a win for the side to move
+     */
+    public static boolean isWin(int result) {
+        return result != DRAW && (distance(result) & 1) == 1;
+    }
+
+    /**
+     * Plies to the end of the game with best play, for a result that is not a draw
+     */
+    public static int distance(int result) {
+        return result - 1;
+    }
+
+    // Position indexing, shared with the generator
+
+    /**
+     * Material groups with 2 to maxPieces pieces and at least one piece per side, in the
+     * order they must be solved: fewer pieces first (captures lead there), then fewer men
+     * (promotions lead there). Each group is {white men, white kings, black men, black kings}.
+     */
+    public static List<int[]> materialGroups(int maxPieces) {
+        List<int[]> groups = new ArrayList<>();
+        for (int whiteMen = 0; whiteMen < maxPieces; whiteMen++) {
+            for (int whiteKings = 0; whiteMen + whiteKings < maxPieces; whiteKings++) {
+                for (int blackMen = 0; whiteMen + whiteKings + blackMen < maxPieces; blackMen++) {
+                    for (int blackKings = 0; whiteMen + whiteKings + blackMen + blackKings <= maxPieces; blackKings++) {
+                        if (whiteMen + whiteKings > 0 && blackMen + blackKings > 0) {
+                            groups.add(new int[] {whiteMen, whiteKings, blackMen, blackKings});
+                        }
+                    }
+                }
+            }
+        }
+        groups.sort(Comparator.<int[]>comparingInt(g -> g[0] + g[1] + g[2] + g[3]).thenComparingInt(g -> g[0] + g[2]));
+        return groups;
+    }
+
+    /**
+     * Number of index slots of a material group, both sides to move included
+     */
+    public static long positionCount(int whiteMen, int whiteKings, int blackMen, int blackKings) {
+        int free = Bitboard.SQUARES - whiteMen - blackMen;
+        if (whiteMen > MAN_SQUARES || blackMen > MAN_SQUARES || whiteKings + blackKings > free) {
+            return 0;
+        }
+        return BINOMIAL[MAN_SQUARES][whiteMen] * BINOMIAL[MAN_SQUARES][blackMen]
+             * BINOMIAL[free][whiteKings] * BINOMIAL[free - whiteKings][blackKings] * 2;
+    }
+
+    /**
+     * Index of a position within its material group.
+     * White men are ranked among squares 4-31 and black men among squares 0-27; kings are
+     * ranked among the squares left empty by the men (white) and by the men and white kings (black).
+     */
+    public static long index(int white, int black, int kings, Team sideToMove) {
+        int whiteMen = white & ~kings;
+        int blackMen = black & ~kings;
+        int whiteKings = white & kings;
+        int blackKings = black & kings;
+        int men = whiteMen | blackMen;
+        int free = Bitboard.SQUARES - Integer.bitCount(men);
+
+        long index = rank(whiteMen >>> 4);
+        index = index * BINOMIAL[MAN_SQUARES][Integer.bitCount(blackMen)] + rank(blackMen);
+        index = index * BINOMIAL[free][Integer.bitCount(whiteKings)] + rank(compress(whiteKings, men));
+        index = index * BINOMIAL[free - Integer.bitCount(whiteKings)][Integer.bitCount(blackKings)]
+              + rank(compress(blackKings, men | whiteKings));
+        return index * 2 + (sideToMove == Team.WHITE ? 0 : 1);
+    }
+
+    /**
+     * Set up the position with the given index of a material group (the inverse of index).
+     *
+     * @return false if the index does not describe a legal position (men of both sides on the same square)
+     */
+    public static boolean decode(long index, int[] group, Bitboard board) {
+        int whiteMenCount = group[0];
+        int whiteKingsCount = group[1];
+        int blackMenCount = group[2];
+        int blackKingsCount = group[3];
+        int free = Bitboard.SQUARES - whiteMenCount - blackMenCount;
+
+        Team sideToMove = (index & 1) == 0 ? Team.WHITE : Team.BLACK;
+        index >>>= 1;
+
+        long blackKingsSize = BINOMIAL[free - whiteKingsCount][blackKingsCount];
+        int blackKingsRank = (int) (index % blackKingsSize);
+        index /= blackKingsSize;
+
+        long whiteKingsSize = BINOMIAL[free][whiteKingsCount];
+        int whiteKingsRank = (int) (index % whiteKingsSize);
+        index /= whiteKingsSize;
+
+        long blackMenSize = BINOMIAL[MAN_SQUARES][blackMenCount];
+        int blackMen = unrank(index % blackMenSize, blackMenCount);
+        int whiteMen = unrank(index / blackMenSize, whiteMenCount) << 4;
+        if ((whiteMen & blackMen) != 0) {
+            return false;
+        }
+
+        int men = whiteMen | blackMen;
+        int whiteKings = expand(unrank(whiteKingsRank, whiteKingsCount), men);
+        int blackKings = expand(unrank(blackKingsRank, blackKingsCount), men | whiteKings);
+
+        board.setPosition(whiteMen | whiteKings, blackMen | blackKings, whiteKings | blackKings, sideToMove);
+        return true;
+    }
+
+    /**
+     * Combinatorial rank of a set of squares (colexicographic order)
+     */
+    private static long rank(int squares) {
+        long rank = 0;
+        int k = 1;
+        for (int bits = squares; bits != 0; bits &= bits - 1) {
+            rank += BINOMIAL[Integer.numberOfTrailingZeros(bits)][k++];
+        }
+        return rank;
+    }
+
+    /**
+     * Set of count squares with the given rank (the inverse of rank)
+     */
+    private static int unrank(long rank, int count) {
+        int squares = 0;
+        for (int k = count; k > 0; k--) {
+            int sq = k - 1;
+            while (BINOMIAL[sq + 1][k] <= rank) {
+                sq++;
+            }
+            squares |= 1 << sq;
+            rank -= BINOMIAL[sq][k];
+        }
+        return squares;
+    }
+
+    /**
+     * Renumber squares so that the occupied ones are skipped
+     */
+    private static int compress(int squares, int occupied) {
+        int result = 0;
+        for (int bits = squares; bits != 0; bits &= bits - 1) {
+            int sq = Integer.numberOfTrailingZeros(bits);
+            result |= 1 << (sq - Integer.bitCount(occupied & ((1 << sq) - 1)));
+        }
+        return result;
+    }
+
+    /**
+     * Map renumbered squares back to board squares (the inverse of compress)
+     */
+    private static int expand(int squares, int occupied) {
+        int result = 0;
+        int freeIndex = 0;
+        for (int sq = 0; sq < Bitboard.SQUARES && squares >>> freeIndex != 0; sq++) {
+            if ((occupied & (1 << sq)) != 0) {
+                continue;
+            }
+            if ((squares & (1 << freeIndex)) != 0) {
+                result |= 1 << sq;
+            }
+            freeIndex++;
+        }
+        return result;
+    }
+
+    private int groupIndex(int whiteMen, int whiteKings, int blackMen, int blackKings) {
+        int size = maxPieces + 1;
+        return ((whiteMen * size + whiteKings) * size + blackMen) * size + blackKings;
+    }
+}
@@ -0,0 +1,112 @@
+package org.onlinecheckers.bot.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+
+/**
+ * Weights of the static evaluation (see Evaluator): points per man, per king, per row
+ * advanced toward promotion and per piece on a side edge. A man is worth 100 points.
+ *
+ * The bundled weights are fitted to self-play games by tools.TexelTuner and stored as
+ * a properties file (man, king, advancement, edge).
+ */
+public final class EvaluationWeights {
+
+    // Classpath location of the weights bundled with bot-core
+    public static final String DEFAULT_RESOURCE = "/evaluation-weights.properties";
+
+    // Hand-written weights, used when the bundled ones are missing
+    public static final EvaluationWeights FALLBACK = new EvaluationWeights(100, 200, 20, 20);
+
+    private final int man;
+    private final int king;
+    private final int advancement;
+    private final int edge;
+
+    public EvaluationWeights(int man, int king, int advancement, int edge) {
+        this.man = man;
+        this.king = king;
+        this.advancement = advancement;
+        this.edge = edge;
+    }
+
+    /**
+     * Load the weights bundled with bot-core, or the fallback weights if they are missing or invalid
+     */
+    public static EvaluationWeights loadDefault() {
+        try (InputStream in = EvaluationWeights.class.getResourceAsStream(DEFAULT_RESOURCE)) {
+            if (in == null) {
+                System.err.println("Evaluation weights not found, using the built-in ones");
+                return FALLBACK;
+            }
+            return read(in);
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("Evaluation weights not available, using the built-in ones: " + e.getMessage());
+            return FALLBACK;
+        }
+    }
+
+    /**
+     * Read weights in properties format
+     *
+     * @throws IllegalArgumentException If a weight is missing or not a number
+     */
+    public static EvaluationWeights read(InputStream in) throws IOException {
+        Properties properties = new Properties();
+        properties.load(in);
+        return new EvaluationWeights(weight(properties, "man"), weight(properties, "king"),
+                                     weight(properties, "advancement"), weight(properties, "edge"));
+    }
+
+    private static int weight(Properties properties, String name) {
+        String value = properties.getProperty(name);
+        if (value == null) {
+            throw new IllegalArgumentException("Missing evaluation weight: " + name);
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid evaluation weight " + name + ": " + value);
+        }
+    }
+
+    /**
+     * Write the weights in properties format
+     *
+     * @param comment Header comment (how the weights were obtained)
+     */
+    public void write(Path path, String comment) throws IOException {
+        try (Writer writer = Files.newBufferedWriter(path)) {
+            writer.write("# " + comment + "\n");
+            writer.write("man=" + man + "\n");
+            writer.write("king=" + king + "\n");
+            writer.write("advancement=" + advancement + "\n");
+            writer.write("edge=" + edge + "\n");
+        }
+    }
+
+    public int getMan() {
+        return man;
+    }
+
+    public int getKing() {
+        return king;
+    }
+
+    public int getAdvancement() {
+        return advancement;
+    }
+
+    public int getEdge() {
+        return edge;
+    }
+
+    @Override
+    public String toString() {
+        return "man=" + man + ", king=" + king + ", advancement=" + advancement + ", edge=" + edge;
+    }
+}
@@ -0,0 +1,59 @@
+package org.onlinecheckers.bot.service;
+
+import org.onlinecheckers.bot.model.Bitboard;
+import org.onlinecheckers.bot.model.Features;
+import org.onlinecheckers.bot.model.Team;
+
+/**
+ * Static evaluation of checkers positions, used at the leaves of the bot search.
+ *
+ * The evaluation is a weighted sum of the features Bitboard keeps up to date on every
+ * move, so it never scans the board. The weights are tuned on self-play games
+ * (see EvaluationWeights).
+ */
+public final class Evaluator {
+
+    // Weights of each feature (see EvaluationWeights), loaded once from the bundled resource
+    private static final EvaluationWeights WEIGHTS = EvaluationWeights.loadDefault();
+    private static final int MAN_VALUE = WEIGHTS.getMan();
+    private static final int KING_VALUE = WEIGHTS.getKing();
+    private static final int ADVANCEMENT_BONUS = WEIGHTS.getAdvancement();
+    private static final int EDGE_BONUS = WEIGHTS.getEdge();
+
+    private Evaluator() {}
+
+    /**
+     * Evaluate a board position from the perspective of the given team.
+     * Higher scores indicate better positions for the team.
+     * 
+     * Evaluation factors:
+     * - Material count (pieces vs opponent pieces)
+     * - Piece advancement (pieces closer to promotion)
+     * - Board control (pieces on edges are harder to capture)
+     * - King promotion bonuses
+     */
+    public static int evaluate(Bitboard board, Team team) {
+        int whiteScore = score(board.features(Team.WHITE));
+        int blackScore = score(board.features(Team.BLACK));
+
+        // Return relative score: positive favors our team, negative favors opponent
+        return (team == Team.WHITE) ? (whiteScore - blackScore) : (blackScore - whiteScore);
+    }
+
+    /**
+     * Weights in use
+     */
+    public static EvaluationWeights weights() {
+        return WEIGHTS;
+    }
+
+    /**
+     * Score of one side's packed features
+     */
+    private static int score(int features) {
+        return Features.men(features) * MAN_VALUE
+             + Features.kings(features) * KING_VALUE
+             + Features.advancement(features) * ADVANCEMENT_BONUS
+             + Features.edges(features) * EDGE_BONUS;
+    }
+}
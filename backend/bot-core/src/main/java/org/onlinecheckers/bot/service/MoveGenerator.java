@@ -0,0 +1,174 @@
+package org.onlinecheckers.bot.service;
+
+import org.onlinecheckers.bot.model.Bitboard;
+import org.onlinecheckers.bot.model.MoveList;
+import org.onlinecheckers.bot.model.Team;
+
+/**
+ * Legal move generation on Bitboard positions.
+ *
+ * Rules follow the game as played on the site: men move and capture forward only,
+ * kings move one square in any diagonal direction, captures are mandatory and only
+ * the sequences capturing the most pieces are legal. A man reaching the last row
+ * during a capture sequence is promoted and continues capturing as a king.
+ *
+ * Moves are written into a caller-owned MoveList, so generation does not allocate.
+ */
+public final class MoveGenerator {
+
+    // Diagonal directions as row/column deltas
+    private static final int[] DIR_ROW = {1, 1, -1, -1};
+    private static final int[] DIR_COL = {1, -1, 1, -1};
+
+    // Direction indexes usable by each piece type, in the order moves are generated
+    private static final int[] KING_DIRECTIONS = {0, 1, 2, 3};
+    private static final int[] WHITE_DIRECTIONS = {2, 3}; // White moves up (decreasing row)
+    private static final int[] BLACK_DIRECTIONS = {0, 1}; // Black moves down (increasing row)
+
+    // Precomputed geometry, indexed by (square << 2 | direction), -1 where it leaves the board:
+    // adjacent square, and landing square of a jump over the adjacent square
+    private static final int[] NEIGHBOURS = new int[Bitboard.SQUARES * 4];
+    private static final int[] JUMPS = new int[Bitboard.SQUARES * 4];
+
+    // Squares where a man of each team is promoted: row 0 for white, row 7 for black
+    private static final int WHITE_PROMOTION;
+    private static final int BLACK_PROMOTION;
+
+    static {
+        int whitePromotion = 0;
+        int blackPromotion = 0;
+        for (int sq = 0; sq < Bitboard.SQUARES; sq++) {
+            int row = Bitboard.row(sq);
+            int col = Bitboard.col(sq);
+            for (int dir = 0; dir < 4; dir++) {
+                NEIGHBOURS[sq << 2 | dir] = Bitboard.square(row + DIR_ROW[dir], col + DIR_COL[dir]);
+                JUMPS[sq << 2 | dir] = Bitboard.square(row + 2 * DIR_ROW[dir], col + 2 * DIR_COL[dir]);
+            }
+            if (row == 0) whitePromotion |= 1 << sq;
+            if (row == 7) blackPromotion |= 1 << sq;
+        }
+        WHITE_PROMOTION = whitePromotion;
+        BLACK_PROMOTION = blackPromotion;
+    }
+
+    private MoveGenerator() {}
+
+    /**
+     * Get all legal moves for the specified team.
+     * In checkers, captures are mandatory, so if captures are available,
+     * only capture moves are returned.
+     */
+    public static void getAllPossibleMoves(Bitboard board, Team team, MoveList moves) {
+        // Check for forced captures first (captures are mandatory in checkers)
+        getAllCaptures(board, team, moves);
+        if (!moves.isEmpty()) {
+            return;
+        }
+
+        int own = board.pieces(team);
+        int empty = ~board.occupied();
+        int kings = board.getKings();
+        int promotion = promotionSquares(team);
+
+        // Scan pieces of the current team in board order
+        for (int pieces = own; pieces != 0; pieces &= pieces - 1) {
+            int sq = Integer.numberOfTrailingZeros(pieces);
+            boolean isKing = (kings & (1 << sq)) != 0;
+
+            for (int dir : directions(team, isKing)) {
+                int to = NEIGHBOURS[sq << 2 | dir];
+                if (to < 0 || (empty & (1 << to)) == 0) continue;
+
+                moves.add(sq, to, 0, 0, 0L, !isKing && (promotion & (1 << to)) != 0);
+            }
+        }
+    }
+
+    /**
+     * Get all capture moves for the specified team.
+     * Only the captures that result in the maximum number of pieces captured are kept
+     * (following standard checkers rules for mandatory maximum captures).
+     */
+    public static void getAllCaptures(Bitboard board, Team team, MoveList moves) {
+        moves.clear();
+
+        int own = board.pieces(team);
+        int opponent = board.pieces(Bitboard.opponent(team));
+        int kings = board.getKings();
+        int maxCaptures = 0;
+
+        for (int pieces = own; pieces != 0; pieces &= pieces - 1) {
+            int sq = Integer.numberOfTrailingZeros(pieces);
+            boolean isKing = (kings & (1 << sq)) != 0;
+
+            // The moving piece leaves its square, which becomes available for landing
+            int occupied = (own | opponent) & ~(1 << sq);
+            maxCaptures = Math.max(maxCaptures,
+                findMultipleCaptures(team, sq, sq, isKing, false, occupied, opponent, 0, 0, 0L, moves));
+        }
+
+        if (maxCaptures > 0) {
+            moves.retainCaptureCount(maxCaptures);
+        }
+    }
+
+    /**
+     * Recursively find all capture sequences continuing from the given square.
+     * Every complete sequence (one that cannot be extended) is added to the list.
+     *
+     * @param team Team making the captures
+     * @param from Origin square of the moving piece
+     * @param sq Current square of the moving piece
+     * @param isKing Whether the moving piece currently moves as a king
+     * @param promoted Whether the piece was promoted during this sequence
+     * @param occupied Occupied squares, excluding the moving piece
+     * @param opponent Opponent pieces still on the board
+     * @param captured Squares captured so far
+     * @param count Number of captures so far
+     * @param path Packed landing squares so far
+     * @param moves Output list
+     * @return Maximum capture count among the sequences found
+     */
+    public static int findMultipleCaptures(Team team, int from, int sq, boolean isKing, boolean promoted,
+                                           int occupied, int opponent, int captured, int count, long path,
+                                           MoveList moves) {
+        int best = 0;
+        boolean foundCapture = false;
+
+        for (int dir : directions(team, isKing)) {
+            int over = NEIGHBOURS[sq << 2 | dir];
+            if (over < 0 || (opponent & (1 << over)) == 0) continue;
+
+            int land = JUMPS[sq << 2 | dir];
+            if (land < 0 || (occupied & (1 << land)) != 0) continue;
+
+            // Handle king promotion during the capture sequence
+            boolean becomesKing = !isKing && (promotionSquares(team) & (1 << land)) != 0;
+
+            int overBit = 1 << over;
+            best = Math.max(best, findMultipleCaptures(
+                team, from, land, isKing || becomesKing, promoted || becomesKing,
+                occupied & ~overBit, opponent & ~overBit, captured | overBit,
+                count + 1, MoveList.appendPath(path, count, land), moves
+            ));
+            foundCapture = true;
+        }
+
+        // End of a sequence: record it as a move
+        if (!foundCapture && count > 0) {
+            moves.add(from, sq, captured, count, path, promoted);
+            return count;
+        }
+
+        return best;
+    }
+
+    private static int[] directions(Team team, boolean isKing) {
+        if (isKing) return KING_DIRECTIONS;
+        return team == Team.WHITE ? WHITE_DIRECTIONS : BLACK_DIRECTIONS;
+    }
+
+    private static int promotionSquares(Team team) {
+        return team == Team.WHITE ? WHITE_PROMOTION : BLACK_PROMOTION;
+    }
+}
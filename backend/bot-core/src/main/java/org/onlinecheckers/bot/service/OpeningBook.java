@@ -0,0 +1,199 @@
+package org.onlinecheckers.bot.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Precomputed best moves for the positions at the start of a game.
+ *
+ * The book is a binary file of fixed-size entries sorted by canonical Zobrist hash
+ * (see Symmetry), so a position and its colour-flipped twin share their entries, and a lookup
+ * is a binary search that needs no parsing and no allocation. Files on disk are memory
+ * mapped; the default book is bundled as a classpath resource.
+ *
+ * File layout (big-endian):
+ * - header: magic "OCBK", format version, entry count (3 ints)
+ * - entries: canonical position hash (long), move (int: from bits 0-4, to bits 5-9, weight bits 16-31),
+ *   captured squares mask (int), with squares as seen in the canonical position
+ *
+ * A position can have several entries (candidate moves), stored consecutively.
+ * Candidates are picked at random in proportion to their weight, so the bot does
+ * not always play the same game. Books are built by tools.OpeningBookGenerator.
+ */
+public class OpeningBook {
+
+    public static final int MAGIC = 0x4F43424B; // "OCBK"
+    public static final int VERSION = 2;
+    public static final int HEADER_BYTES = 12;
+    public static final int ENTRY_BYTES = 16;
+
+    // Classpath location of the book bundled with bot-core
+    public static final String DEFAULT_RESOURCE = "/opening-book.bin";
+
+    private final ByteBuffer buffer;
+    private final int size;
+
+    private OpeningBook(ByteBuffer buffer) {
+        if (buffer.capacity() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("Not an opening book file");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IllegalArgumentException("Unsupported opening book version: " + buffer.getInt(4));
+        }
+
+        this.buffer = buffer;
+        this.size = buffer.getInt(8);
+        if (buffer.capacity() < HEADER_BYTES + (long) size * ENTRY_BYTES) {
+            throw new IllegalArgumentException("Truncated opening book file");
+        }
+    }
+
+    /**
+     * Memory-map a book file
+     */
+    public static OpeningBook open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new OpeningBook(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * The book bundled with bot-core. It is read once and shared by every BotAlgorithm of the JVM.
+     *
+     * @return The book, or null if the resource is missing
+     */
+    public static OpeningBook loadDefault() throws IOException {
+        if (Bundled.ERROR != null) {
+            throw new IOException(Bundled.ERROR);
+        }
+        return Bundled.BOOK;
+    }
+
+    private static OpeningBook readDefault() throws IOException {
+        try (InputStream in = OpeningBook.class.getResourceAsStream(DEFAULT_RESOURCE)) {
+            if (in == null) {
+                return null;
+            }
+            return new OpeningBook(ByteBuffer.wrap(in.readAllBytes()));
+        }
+    }
+
+    // Holder of the bundled book, read on first use. Native images initialize it at build
+    // time (see the bot-lambda configuration), so the book is part of the image heap.
+    private static final class Bundled {
+        static final OpeningBook BOOK;
+        static final String ERROR;
+
+        static {
+            OpeningBook book = null;
+            String error = null;
+            try {
+                book = readDefault();
+            } catch (IOException | IllegalArgumentException e) {
+                error = e.getMessage();
+            }
+            BOOK = book;
+            ERROR = error;
+        }
+    }
+
+    /**
+     * Number of entries (candidate moves) in the book
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Pick a book move for a position.
+     *
+     * @param hash Canonical hash of the position (Bitboard.getCanonicalHash)
+     * @return The chosen candidate (decode it with from/to/captured), or -1 if the position is not in book
+     */
+    public int pick(long hash) {
+        int first = firstEntry(hash);
+        if (first < 0) {
+            return -1;
+        }
+
+        // Candidates of the position are consecutive: sum their weights
+        int last = first;
+        int totalWeight = 0;
+        while (last < size && key(last) == hash) {
+            totalWeight += weight(move(last));
+            last++;
+        }
+
+        // Weighted random choice
+        int roll = ThreadLocalRandom.current().nextInt(Math.max(1, totalWeight));
+        for (int i = first; i < last; i++) {
+            roll -= weight(move(i));
+            if (roll < 0) {
+                return i;
+            }
+        }
+        return first;
+    }
+
+    // Candidate decoding
+    public int from(int entry) {
+        return move(entry) & 31;
+    }
+
+    public int to(int entry) {
+        return (move(entry) >>> 5) & 31;
+    }
+
+    public int captured(int entry) {
+        return buffer.getInt(offset(entry) + 12);
+    }
+
+    /**
+     * Pack a candidate move for the book file
+     */
+    public static int packMove(int from, int to, int weight) {
+        return from | (to << 5) | (weight << 16);
+    }
+
+    private static int weight(int move) {
+        return move >>> 16;
+    }
+
+    /**
+     * Index of the first entry with the given key, or -1
+     */
+    private int firstEntry(long hash) {
+        int low = 0;
+        int high = size - 1;
+        int found = -1;
+
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            long key = key(mid);
+            if (key < hash) {
+                low = mid + 1;
+            } else {
+                if (key == hash) found = mid;
+                high = mid - 1;
+            }
+        }
+        return found;
+    }
+
+    private long key(int entry) {
+        return buffer.getLong(offset(entry));
+    }
+
+    private int move(int entry) {
+        return buffer.getInt(offset(entry) + 8);
+    }
+
+    private static int offset(int entry) {
+        return HEADER_BYTES + entry * ENTRY_BYTES;
+    }
+}
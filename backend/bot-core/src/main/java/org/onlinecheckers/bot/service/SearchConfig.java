@@ -0,0 +1,165 @@
+package org.onlinecheckers.bot.service;
+
+/**
+ * Tunable settings of the bot search engine.
+ * Defaults are suitable for both the api-server and the Lambda.
+ *
+ * Difficulty levels are 1 (easy), 2 (medium), 3 (hard) and 4 (expert); unknown levels use medium settings.
+ */
+public class SearchConfig {
+
+    public static final int DEFAULT_TRANSPOSITION_TABLE_SIZE_MB = 16;
+    public static final long DEFAULT_MAX_TIME_LIMIT_MS = 5000;
+    public static final int DEFAULT_THREADS = 1;
+    public static final int DEFAULT_OPENING_BOOK_MIN_DIFFICULTY = 3;
+    public static final int DEFAULT_TABLEBASE_MIN_DIFFICULTY = 3;
+    public static final int DEFAULT_QUIESCENCE_NODE_LIMIT = 256;
+    public static final int DEFAULT_QUIESCENCE_MIN_DIFFICULTY = 3;
+
+    // Memory budget of the transposition table shared by all searches
+    private int transpositionTableSizeMb = DEFAULT_TRANSPOSITION_TABLE_SIZE_MB;
+
+    // Deepest iteration searched per difficulty: easy and medium keep their fixed
+    // strength, hard and expert search as deep as their time budget allows
+    private final int[] maxDepths = {1, 3, 16, 32};
+
+    // Wall-clock budget per move and difficulty, in milliseconds
+    private final long[] timeLimitsMs = {1000, 1000, 1000, 3000};
+
+    // Upper bound for time budgets requested by clients
+    private long maxTimeLimitMs = DEFAULT_MAX_TIME_LIMIT_MS;
+
+    // Threads searching root moves in parallel (1 = single-threaded search)
+    private int threads = DEFAULT_THREADS;
+
+    // Opening book: bundled book unless a file path is given
+    private boolean openingBookEnabled = true;
+    private String openingBookPath = null;
+
+    // Easy and medium keep searching their openings, so they play with their usual strength
+    private int openingBookMinDifficulty = DEFAULT_OPENING_BOOK_MIN_DIFFICULTY;
+
+    // Endgame tablebase: bundled tables unless a file path is given
+    private boolean tablebaseEnabled = true;
+    private String tablebasePath = null;
+
+    // Easy and medium don't play endgames perfectly
+    private int tablebaseMinDifficulty = DEFAULT_TABLEBASE_MIN_DIFFICULTY;
+
+    // Quiescence search: nodes spent resolving the captures below each leaf (0 disables it)
+    private int quiescenceNodeLimit = DEFAULT_QUIESCENCE_NODE_LIMIT;
+
+    // Easy and medium keep stopping at their nominal depth, exchanges included
+    private int quiescenceMinDifficulty = DEFAULT_QUIESCENCE_MIN_DIFFICULTY;
+
+    public SearchConfig() {}
+
+    // Getters and setters
+    public int getTranspositionTableSizeMb() {
+        return transpositionTableSizeMb;
+    }
+
+    public void setTranspositionTableSizeMb(int transpositionTableSizeMb) {
+        this.transpositionTableSizeMb = transpositionTableSizeMb;
+    }
+
+    public int getMaxDepth(int difficulty) {
+        return maxDepths[index(difficulty)];
+    }
+
+    public void setMaxDepth(int difficulty, int maxDepth) {
+        maxDepths[index(difficulty)] = maxDepth;
+    }
+
+    public long getTimeLimitMs(int difficulty) {
+        return timeLimitsMs[index(difficulty)];
+    }
+
+    public void setTimeLimitMs(int difficulty, long timeLimitMs) {
+        timeLimitsMs[index(difficulty)] = timeLimitMs;
+    }
+
+    public long getMaxTimeLimitMs() {
+        return maxTimeLimitMs;
+    }
+
+    public void setMaxTimeLimitMs(long maxTimeLimitMs) {
+        this.maxTimeLimitMs = maxTimeLimitMs;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    public boolean isOpeningBookEnabled() {
+        return openingBookEnabled;
+    }
+
+    public void setOpeningBookEnabled(boolean openingBookEnabled) {
+        this.openingBookEnabled = openingBookEnabled;
+    }
+
+    public String getOpeningBookPath() {
+        return openingBookPath;
+    }
+
+    public void setOpeningBookPath(String openingBookPath) {
+        this.openingBookPath = openingBookPath;
+    }
+
+    public int getOpeningBookMinDifficulty() {
+        return openingBookMinDifficulty;
+    }
+
+    public void setOpeningBookMinDifficulty(int openingBookMinDifficulty) {
+        this.openingBookMinDifficulty = openingBookMinDifficulty;
+    }
+
+    public boolean isTablebaseEnabled() {
+        return tablebaseEnabled;
+    }
+
+    public void setTablebaseEnabled(boolean tablebaseEnabled) {
+        this.tablebaseEnabled = tablebaseEnabled;
+    }
+
+    public String getTablebasePath() {
+        return tablebasePath;
+    }
+
+    public void setTablebasePath(String tablebasePath) {
+        this.tablebasePath = tablebasePath;
+    }
+
+    public int getTablebaseMinDifficulty() {
+        return tablebaseMinDifficulty;
+    }
+
+    public void setTablebaseMinDifficulty(int tablebaseMinDifficulty) {
+        this.tablebaseMinDifficulty = tablebaseMinDifficulty;
+    }
+
+    public int getQuiescenceNodeLimit() {
+        return quiescenceNodeLimit;
+    }
+
+    public void setQuiescenceNodeLimit(int quiescenceNodeLimit) {
+        this.quiescenceNodeLimit = quiescenceNodeLimit;
+    }
+
+    public int getQuiescenceMinDifficulty() {
+        return quiescenceMinDifficulty;
+    }
+
+    public void setQuiescenceMinDifficulty(int quiescenceMinDifficulty) {
+        this.quiescenceMinDifficulty = quiescenceMinDifficulty;
+    }
+
+    private static int index(int difficulty) {
+        return difficulty >= 1 && difficulty <= 4 ? difficulty - 1 : 1;
+    }
+}
@@ -0,0 +1,332 @@
+package org.onlinecheckers.bot.service;
+
+import org.onlinecheckers.bot.model.Bitboard;
+import org.onlinecheckers.bot.model.MoveList;
+
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Mutable state of a single bot search: the position being searched,
+ * one reusable move list per ply, the move ordering tables and the time control.
+ * Every search creates its own context, so it is never shared between threads:
+ * parallel searches fork one context per task, sharing only the deadline and the stop flag.
+ */
+class SearchContext {
+
+    // How often (in nodes) the clock is checked
+    private static final int TIME_CHECK_INTERVAL = 1024;
+
+    // History scores are halved when one reaches this value, so they never overflow
+    // and recent cutoffs weigh more than old ones
+    static final int MAX_HISTORY_SCORE = 1 << 20;
+
+    // Marks an empty killer slot
+    private static final int NO_MOVE = -1;
+
+    // Every capture removes a piece, so a line of captures is never longer than this
+    static final int MAX_QUIESCENCE_PLY = 24;
+
+    // Mixed into the transposition table key per search setting, so scores computed with
+    // quiescence or endgame tables are never reused by searches that run without them
+    private static final long QUIESCENCE_KEY = 0x9E3779B97F4A7C15L;
+    private static final long TABLEBASE_KEY = 0xC2B2AE3D27D4EB4FL;
+
+    private final Bitboard board;
+    private final MoveList[] moveStack;
+    private final long startTime;
+    private final long deadline;
+    private final int maxDepth;
+
+    // Hashes of the positions already reached in the game
+    private final Set<Long> reachedPositions;
+
+    // Set by the first context of a search that runs out of time, seen by all its forks
+    private final AtomicBoolean stopped;
+
+    // Killer moves: the last two quiet moves that caused a beta cutoff at each ply
+    private final int[][] killers;
+
+    // History heuristic: how often each quiet move (side, from, to) caused a cutoff, weighted by depth
+    private final int[] historyScores = new int[2 * 32 * 32];
+
+    // Exact endgame results, null when the search must not use them
+    private EndgameTablebase tablebase = null;
+
+    // Quiescence search: nodes allowed below each leaf (0 = leaves are evaluated as they are),
+    // nodes left for the current leaf, and one move list per capture ply
+    private int quiescenceNodeLimit = 0;
+    private int quiescenceNodesLeft = 0;
+    private MoveList[] quiescenceStack = null;
+    private long quiescenceNodes = 0;
+
+    private long nodes = 0;
+    private boolean aborted = false;
+    private boolean abortable = false;
+
+    // Root results of the last completed iteration
+    private int rootMoveCount = 0;
+    private int bestFrom = -1;
+    private int bestTo = -1;
+    private int bestCaptured = 0;
+    private int completedDepth = 0;
+
+    /**
+     * @param board Position to search, with the bot to move
+     * @param maxDepth Deepest iteration that can be searched
+     * @param timeLimitMs Wall-clock budget for the whole search
+     * @param reachedPositions Hashes of the positions already reached in the game
+     */
+    SearchContext(Bitboard board, int maxDepth, long timeLimitMs, Set<Long> reachedPositions) {
+        this(board, maxDepth, timeLimitMs, reachedPositions, new AtomicBoolean());
+    }
+
+    /**
+     * @param stopped Stops the search once set by another thread (the search also sets it when time runs out)
+     */
+    SearchContext(Bitboard board, int maxDepth, long timeLimitMs, Set<Long> reachedPositions, AtomicBoolean stopped) {
+        this(board, maxDepth, System.nanoTime(), timeLimitMs * 1_000_000L, stopped, reachedPositions);
+    }
+
+    private SearchContext(Bitboard board, int maxDepth, long startTime, long budgetNanos,
+                          AtomicBoolean stopped, Set<Long> reachedPositions) {
+        this.board = board;
+        this.maxDepth = maxDepth;
+        this.reachedPositions = reachedPositions;
+        this.moveStack = new MoveList[maxDepth + 1];
+        for (int i = 0; i <= maxDepth; i++) {
+            moveStack[i] = new MoveList();
+        }
+        this.killers = new int[maxDepth + 1][2];
+        for (int[] slots : killers) {
+            slots[0] = NO_MOVE;
+            slots[1] = NO_MOVE;
+        }
+        this.startTime = startTime;
+        this.deadline = startTime + budgetNanos;
+        this.stopped = stopped;
+    }
+
+    /**
+     * Create a context for a parallel task: a copy of the current position with its own
+     * move lists and node count, stopping together with this context
+     */
+    SearchContext fork() {
+        SearchContext fork = new SearchContext(board.copy(), maxDepth, startTime, deadline - startTime, stopped, reachedPositions);
+        fork.abortable = abortable;
+        fork.tablebase = tablebase;
+        fork.setQuiescenceNodeLimit(quiescenceNodeLimit);
+
+        // Start from what this search already learned about move ordering
+        System.arraycopy(historyScores, 0, fork.historyScores, 0, historyScores.length);
+        for (int ply = 0; ply < killers.length; ply++) {
+            fork.killers[ply][0] = killers[ply][0];
+            fork.killers[ply][1] = killers[ply][1];
+        }
+        return fork;
+    }
+
+    /**
+     * Add the nodes searched by a finished fork, and stop if it ran out of time
+     */
+    void join(SearchContext fork) {
+        nodes += fork.nodes;
+        quiescenceNodes += fork.quiescenceNodes;
+        if (stopped.get()) {
+            aborted = true;
+        }
+    }
+
+    Bitboard board() {
+        return board;
+    }
+
+    EndgameTablebase tablebase() {
+        return tablebase;
+    }
+
+    void setTablebase(EndgameTablebase tablebase) {
+        this.tablebase = tablebase;
+    }
+
+    /**
+     * Transposition table key of a position for this search: the canonical hash,
+     * kept apart for every combination of quiescence and endgame tables
+     */
+    long transpositionKey(Bitboard position) {
+        long key = position.getCanonicalHash();
+        if (quiescenceNodeLimit > 0) {
+            key ^= QUIESCENCE_KEY;
+        }
+        if (tablebase != null) {
+            key ^= TABLEBASE_KEY;
+        }
+        return key;
+    }
+
+    int quiescenceNodeLimit() {
+        return quiescenceNodeLimit;
+    }
+
+    void setQuiescenceNodeLimit(int quiescenceNodeLimit) {
+        this.quiescenceNodeLimit = quiescenceNodeLimit;
+        if (quiescenceNodeLimit > 0 && quiescenceStack == null) {
+            quiescenceStack = new MoveList[MAX_QUIESCENCE_PLY + 1];
+            for (int i = 0; i <= MAX_QUIESCENCE_PLY; i++) {
+                quiescenceStack[i] = new MoveList();
+            }
+        }
+    }
+
+    /**
+     * Give the quiescence search of a new leaf its full node budget
+     */
+    void startQuiescence() {
+        quiescenceNodesLeft = quiescenceNodeLimit;
+    }
+
+    /**
+     * Count a quiescence node against the budget of the current leaf
+     *
+     * @return false if the budget is spent and the position must be evaluated as it is
+     */
+    boolean spendQuiescenceNode() {
+        quiescenceNodes++;
+        return quiescenceNodesLeft-- > 0;
+    }
+
+    /**
+     * Move list reserved for the given quiescence ply (0 at the leaf)
+     */
+    MoveList quiescenceMoves(int ply) {
+        return quiescenceStack[ply];
+    }
+
+    long quiescenceNodes() {
+        return quiescenceNodes;
+    }
+
+    /**
+     * Check whether a position was already reached earlier in the game
+     */
+    boolean isRepetition(long hash) {
+        return reachedPositions.contains(hash);
+    }
+
+    /**
+     * Check whether a move is one of the killer moves of the given ply
+     *
+     * @return 1 for the most recent killer, 2 for the older one, 0 otherwise
+     */
+    int killerRank(int ply, int from, int to) {
+        int move = from | (to << 5);
+        if (killers[ply][0] == move) return 1;
+        if (killers[ply][1] == move) return 2;
+        return 0;
+    }
+
+    /**
+     * Record a quiet move that caused a beta cutoff
+     */
+    void addCutoff(int ply, boolean white, int from, int to, int depth) {
+        int move = from | (to << 5);
+        if (killers[ply][0] != move) {
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = move;
+        }
+
+        int index = historyIndex(white, from, to);
+        historyScores[index] += depth * depth;
+        if (historyScores[index] >= MAX_HISTORY_SCORE) {
+            for (int i = 0; i < historyScores.length; i++) {
+                historyScores[i] >>= 1;
+            }
+        }
+    }
+
+    int historyScore(boolean white, int from, int to) {
+        return historyScores[historyIndex(white, from, to)];
+    }
+
+    private static int historyIndex(boolean white, int from, int to) {
+        return (white ? 0 : 1024) | (from << 5) | to;
+    }
+
+    /**
+     * Move list reserved for the given remaining depth
+     */
+    MoveList moves(int depth) {
+        return moveStack[depth];
+    }
+
+    /**
+     * Count a visited node and check the clock from time to time.
+     *
+     * @return true if the search must stop
+     */
+    boolean visitNode() {
+        nodes++;
+        if (abortable && (nodes % TIME_CHECK_INTERVAL) == 0
+                && (stopped.get() || System.nanoTime() > deadline)) {
+            aborted = true;
+            stopped.set(true);
+        }
+        return aborted;
+    }
+
+    boolean isAborted() {
+        return aborted;
+    }
+
+    /**
+     * Allow the clock to stop the search (the first iteration always completes)
+     */
+    void setAbortable(boolean abortable) {
+        this.abortable = abortable;
+    }
+
+    int rootMoveCount() {
+        return rootMoveCount;
+    }
+
+    void setRootMoveCount(int rootMoveCount) {
+        this.rootMoveCount = rootMoveCount;
+    }
+
+    /**
+     * Remember the best root move of a completed iteration
+     */
+    void setBestMove(MoveList moves, int index) {
+        bestFrom = moves.from(index);
+        bestTo = moves.to(index);
+        bestCaptured = moves.captured(index);
+    }
+
+    /**
+     * Check whether a move is the best root move of the previous iteration
+     */
+    boolean isBestMove(MoveList moves, int index) {
+        return moves.from(index) == bestFrom && moves.to(index) == bestTo
+            && moves.captured(index) == bestCaptured;
+    }
+
+    int completedDepth() {
+        return completedDepth;
+    }
+
+    void setCompletedDepth(int completedDepth) {
+        this.completedDepth = completedDepth;
+    }
+
+    long nodes() {
+        return nodes;
+    }
+
+    long elapsedMs() {
+        return (System.nanoTime() - startTime) / 1_000_000L;
+    }
+
+    long timeLimitMs() {
+        return (deadline - startTime) / 1_000_000L;
+    }
+}
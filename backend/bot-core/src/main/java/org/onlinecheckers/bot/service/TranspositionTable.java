@@ -0,0 +1,179 @@
+package org.onlinecheckers.bot.service;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size hash table of search results, keyed by Zobrist hash.
+ *
+ * Each entry stores score, remaining depth, bound type and best move packed in one long.
+ * Entries are grouped in buckets of two slots: the first keeps the deepest result
+ * (replaced only by deeper or equally deep results, or results from a newer search),
+ * the second is always replaced. This keeps expensive results around while still
+ * caching the most recent positions.
+ *
+ * The key is stored XORed with the data, so an entry torn by a concurrent write
+ * fails the key check instead of returning another position's data. This makes
+ * the table safe to share between threads without locking.
+ */
+public class TranspositionTable {
+
+    // Bound types
+    public static final int EXACT = 0;
+    public static final int LOWER_BOUND = 1;  // Score is at least the stored value (beta cutoff)
+    public static final int UPPER_BOUND = 2;  // Score is at most the stored value (no move raised alpha)
+
+    // Value returned by probe when the position is not in the table
+    public static final long MISS = 0L;
+
+    private static final int ENTRY_BYTES = 16;
+
+    // Packed data layout
+    private static final int DEPTH_SHIFT = 32;
+    private static final int BOUND_SHIFT = 40;
+    private static final int MOVE_SHIFT = 42;
+    private static final int GENERATION_SHIFT = 53;
+    private static final long HAS_MOVE = 1L << 52;
+    private static final long VALID = 1L << 62;
+
+    private final long[] keys;
+    private final long[] data;
+    private final int mask;
+
+    // Incremented for every new search, so stale entries are replaced first
+    private volatile int generation = 0;
+
+    /**
+     * @param sizeMb Memory budget in megabytes (rounded down to a power-of-two number of entries)
+     */
+    public TranspositionTable(int sizeMb) {
+        long budget = Math.max(1, sizeMb) * 1024L * 1024L / ENTRY_BYTES;
+        int entries = Integer.highestOneBit((int) Math.min(budget, 1 << 30));
+        keys = new long[entries];
+        data = new long[entries];
+        mask = entries - 1;
+    }
+
+    /**
+     * Mark the start of a new search: entries of older searches become replaceable
+     */
+    public void newSearch() {
+        generation = (generation + 1) & 0xFF;
+    }
+
+    /**
+     * Look up a position.
+     *
+     * @return The packed entry (decode it with score/depth/bound/move helpers), or MISS
+     */
+    public long probe(long key) {
+        int index = bucket(key);
+        for (int slot = index; slot < index + 2; slot++) {
+            long entry = data[slot];
+            if ((keys[slot] ^ entry) == key && (entry & VALID) != 0) {
+                return entry;
+            }
+        }
+        return MISS;
+    }
+
+    /**
+     * Store a search result.
+     *
+     * @param key Zobrist hash of the position
+     * @param score Score from the perspective of the side to move
+     * @param depth Remaining depth the score was searched to
+     * @param bound EXACT, LOWER_BOUND or UPPER_BOUND
+     * @param from Origin square of the best move, or -1 if unknown
+     * @param to Final square of the best move
+     */
+    public void store(long key, int score, int depth, int bound, int from, int to) {
+        int index = bucket(key);
+        int currentGeneration = generation;
+
+        long entry = (score & 0xFFFFFFFFL)
+            | ((long) Math.min(depth, 255) << DEPTH_SHIFT)
+            | ((long) bound << BOUND_SHIFT)
+            | ((long) currentGeneration << GENERATION_SHIFT)
+            | VALID;
+        if (from >= 0) {
+            entry |= ((long) (from | (to << 5)) << MOVE_SHIFT) | HAS_MOVE;
+        }
+
+        // Same position already stored: update it in place
+        for (int slot = index; slot < index + 2; slot++) {
+            long old = data[slot];
+            if ((keys[slot] ^ old) == key && (old & VALID) != 0) {
+                // Keep a known best move if the new result has none
+                if (from < 0 && (old & HAS_MOVE) != 0) {
+                    entry |= old & ((0x3FFL << MOVE_SHIFT) | HAS_MOVE);
+                }
+                write(slot, key, entry);
+                return;
+            }
+        }
+
+        // Depth-preferred slot: replace shallower or stale results
+        long preferred = data[index];
+        if ((preferred & VALID) == 0
+                || generation(preferred) != currentGeneration
+                || depth >= depth(preferred)) {
+            write(index, key, entry);
+        } else {
+            // Always-replace slot
+            write(index + 1, key, entry);
+        }
+    }
+
+    /**
+     * Remove all entries
+     */
+    public void clear() {
+        Arrays.fill(keys, 0L);
+        Arrays.fill(data, 0L);
+    }
+
+    /**
+     * Number of entries the table can hold
+     */
+    public int capacity() {
+        return keys.length;
+    }
+
+    // Entry decoding
+    public static int score(long entry) {
+        return (int) entry;
+    }
+
+    public static int depth(long entry) {
+        return (int) (entry >>> DEPTH_SHIFT) & 0xFF;
+    }
+
+    public static int bound(long entry) {
+        return (int) (entry >>> BOUND_SHIFT) & 3;
+    }
+
+    public static boolean hasMove(long entry) {
+        return (entry & HAS_MOVE) != 0;
+    }
+
+    public static int moveFrom(long entry) {
+        return (int) (entry >>> MOVE_SHIFT) & 31;
+    }
+
+    public static int moveTo(long entry) {
+        return (int) (entry >>> (MOVE_SHIFT + 5)) & 31;
+    }
+
+    private static int generation(long entry) {
+        return (int) (entry >>> GENERATION_SHIFT) & 0xFF;
+    }
+
+    private int bucket(long key) {
+        return (int) key & mask & ~1;
+    }
+
+    private void write(int slot, long key, long entry) {
+        data[slot] = entry;
+        keys[slot] = key ^ entry;
+    }
+}
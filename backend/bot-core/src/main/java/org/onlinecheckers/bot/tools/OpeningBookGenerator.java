@@ -0,0 +1,136 @@
+package org.onlinecheckers.bot.tools;
+
+import org.onlinecheckers.bot.model.Bitboard;
+import org.onlinecheckers.bot.model.MoveList;
+import org.onlinecheckers.bot.model.Symmetry;
+import org.onlinecheckers.bot.model.Team;
+import org.onlinecheckers.bot.service.BotAlgorithm;
+import org.onlinecheckers.bot.service.MoveGenerator;
+import org.onlinecheckers.bot.service.OpeningBook;
+import org.onlinecheckers.bot.service.SearchConfig;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds the opening book: every position reachable from the initial position within
+ * a number of plies is searched deeply, and the moves scoring close to the best one
+ * are stored as weighted candidates (the better the score, the higher the weight).
+ *
+ * Usage: java -cp bot-core.jar org.onlinecheckers.bot.tools.OpeningBookGenerator
+ *        output-file [plies=6] [depth=12] [margin=40]
+ *
+ * Copy the output to bot-core/src/main/resources/opening-book.bin to update the bundled book.
+ */
+public class OpeningBookGenerator {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: OpeningBookGenerator output-file [plies] [depth] [margin]");
+            System.exit(1);
+        }
+
+        Path output = Path.of(args[0]);
+        int plies = args.length > 1 ? Integer.parseInt(args[1]) : 6;
+        int depth = args.length > 2 ? Integer.parseInt(args[2]) : 12;
+        int margin = args.length > 3 ? Integer.parseInt(args[3]) : 40;
+
+        // Collect the distinct positions of the first plies (a position and its colour-flipped twin count once)
+        Map<Long, Bitboard> positions = new HashMap<>();
+        collect(Bitboard.startPosition(), plies, positions, new HashMap<>(), new MoveList[plies + 1]);
+        System.out.println(positions.size() + " positions within " + plies + " plies");
+
+        SearchConfig config = new SearchConfig();
+        config.setOpeningBookEnabled(false);
+        config.setTranspositionTableSizeMb(64);
+        BotAlgorithm algorithm = new BotAlgorithm(config);
+
+        List<long[]> entries = new ArrayList<>();
+        MoveList moves = new MoveList();
+        int done = 0;
+
+        for (Map.Entry<Long, Bitboard> position : positions.entrySet()) {
+            Bitboard board = position.getValue();
+            Team team = board.getSideToMove();
+            int[] scores = algorithm.analyzeMoves(board, moves, depth);
+
+            // A single legal move needs no book: the search plays it instantly
+            if (moves.size() > 1) {
+                int best = Integer.MIN_VALUE;
+                for (int score : scores) {
+                    best = Math.max(best, score);
+                }
+
+                for (int i = 0; i < moves.size(); i++) {
+                    int loss = best - scores[i];
+                    if (loss <= margin) {
+                        int weight = margin + 1 - loss;
+                        entries.add(new long[] {
+                            position.getKey(),
+                            OpeningBook.packMove(Symmetry.canonicalSquare(team, moves.from(i)),
+                                                 Symmetry.canonicalSquare(team, moves.to(i)), weight),
+                            Symmetry.canonicalSquares(team, moves.captured(i)),
+                            weight
+                        });
+                    }
+                }
+            }
+
+            if (++done % 100 == 0) {
+                System.out.println(done + "/" + positions.size() + " positions searched");
+            }
+        }
+
+        // Sorted by hash for the binary search, best candidates first
+        entries.sort((a, b) -> a[0] != b[0] ? Long.compare(a[0], b[0]) : Long.compare(b[3], a[3]));
+
+        try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(output))) {
+            out.writeInt(OpeningBook.MAGIC);
+            out.writeInt(OpeningBook.VERSION);
+            out.writeInt(entries.size());
+            for (long[] entry : entries) {
+                out.writeLong(entry[0]);
+                out.writeInt((int) entry[1]);
+                out.writeInt((int) entry[2]);
+            }
+        }
+
+        algorithm.shutdown();
+        System.out.println(entries.size() + " book moves written to " + output);
+    }
+
+    /**
+     * Add the position and all positions reachable from it within the given plies
+     *
+     * @param explored Remaining plies each position was already explored with
+     */
+    private static void collect(Bitboard board, int plies, Map<Long, Bitboard> positions,
+                                Map<Long, Integer> explored, MoveList[] moveStack) {
+        positions.putIfAbsent(board.getCanonicalHash(), board.copy());
+
+        // Transpositions: don't explore the same position again unless more plies are left
+        Integer previous = explored.get(board.getHash());
+        if (plies == 0 || (previous != null && previous >= plies)) {
+            return;
+        }
+        explored.put(board.getHash(), plies);
+
+        if (moveStack[plies] == null) {
+            moveStack[plies] = new MoveList();
+        }
+        MoveList moves = moveStack[plies];
+        MoveGenerator.getAllPossibleMoves(board, board.getSideToMove(), moves);
+
+        for (int i = 0; i < moves.size(); i++) {
+            board.makeMove(moves, i);
+            collect(board, plies - 1, positions, explored, moveStack);
+            board.unmakeMove();
+        }
+    }
+}
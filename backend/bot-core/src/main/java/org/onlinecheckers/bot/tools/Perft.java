@@ -0,0 +1,127 @@
+package org.onlinecheckers.bot.tools;
+
+import org.onlinecheckers.bot.model.Bitboard;
+import org.onlinecheckers.bot.model.Move;
+import org.onlinecheckers.bot.model.MoveList;
+import org.onlinecheckers.bot.service.MoveGenerator;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Perft (performance test) for the bot move generator: counts the leaf nodes of the
+ * full move tree to a fixed depth. Known counts prove that move generation is unchanged
+ * after an optimization, and the time taken measures move generation throughput.
+ *
+ * Every capture sequence returned by the generator counts as a separate move, exactly as
+ * the search sees it. Positions where the side to move has no legal moves are not leaves.
+ *
+ * Usage: java -cp bot-core.jar org.onlinecheckers.bot.tools.Perft [depth] [position] [--divide]
+ * where position uses the board history format (see Bitboard.fromHistoryString);
+ * the default is the initial position.
+ */
+public class Perft {
+
+    private final Bitboard board;
+    private final MoveList[] moveStack;
+
+    /**
+     * @param board Root position (restored after each count)
+     * @param maxDepth Deepest count this instance will be asked for
+     */
+    public Perft(Bitboard board, int maxDepth) {
+        this.board = board;
+        this.moveStack = new MoveList[maxDepth + 1];
+        for (int i = 0; i <= maxDepth; i++) {
+            moveStack[i] = new MoveList();
+        }
+    }
+
+    /**
+     * Count the leaf nodes of the move tree to the given depth
+     */
+    public long count(int depth) {
+        if (depth == 0) {
+            return 1;
+        }
+
+        MoveList moves = moveStack[depth];
+        MoveGenerator.getAllPossibleMoves(board, board.getSideToMove(), moves);
+
+        // The moves of the last ply are the leaves: no need to make them
+        if (depth == 1) {
+            return moves.size();
+        }
+
+        long nodes = 0;
+        for (int i = 0; i < moves.size(); i++) {
+            board.makeMove(moves, i);
+            nodes += count(depth - 1);
+            board.unmakeMove();
+        }
+        return nodes;
+    }
+
+    /**
+     * Count the leaf nodes below each root move, in generation order.
+     * Keys are "from-to" with the capture path appended ("from-to [a, b]").
+     */
+    public Map<String, Long> divide(int depth) {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        if (depth == 0) {
+            return counts;
+        }
+
+        MoveList moves = moveStack[depth];
+        MoveGenerator.getAllPossibleMoves(board, board.getSideToMove(), moves);
+
+        for (int i = 0; i < moves.size(); i++) {
+            Move move = moves.toMove(i);
+            String key = move.getFromPosition() + "-" + move.getToPosition()
+                + (move.getCapturePath() != null ? " " + move.getCapturePath() : "");
+
+            board.makeMove(moves, i);
+            counts.merge(key, count(depth - 1), Long::sum);
+            board.unmakeMove();
+        }
+        return counts;
+    }
+
+    public static void main(String[] args) {
+        int depth = 6;
+        Bitboard board = Bitboard.startPosition();
+        boolean divide = false;
+
+        for (String arg : args) {
+            if (arg.equals("--divide")) {
+                divide = true;
+            } else if (arg.matches("\\d+")) {
+                depth = Integer.parseInt(arg);
+            } else {
+                board = Bitboard.fromHistoryString(arg);
+                if (board == null) {
+                    System.err.println("Invalid position: " + arg);
+                    System.exit(1);
+                }
+            }
+        }
+
+        System.out.println(board);
+        Perft perft = new Perft(board, depth);
+
+        for (int d = 1; d <= depth; d++) {
+            long start = System.nanoTime();
+            long nodes = perft.count(d);
+            long elapsed = System.nanoTime() - start;
+
+            long movesPerSecond = elapsed > 0 ? nodes * 1_000_000_000L / elapsed : 0;
+            System.out.printf("perft(%d) = %d  (%d ms, %d moves/s)%n",
+                              d, nodes, elapsed / 1_000_000, movesPerSecond);
+        }
+
+        if (divide) {
+            System.out.println();
+            perft.divide(depth).forEach((move, nodes) -> System.out.println(move + ": " + nodes));
+        }
+    }
+}
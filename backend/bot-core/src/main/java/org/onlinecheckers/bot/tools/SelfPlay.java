@@ -0,0 +1,244 @@
+package org.onlinecheckers.bot.tools;
+
+import org.onlinecheckers.bot.dto.BotMoveRequestDto;
+import org.onlinecheckers.bot.dto.BotMoveResponseDto;
+import org.onlinecheckers.bot.model.Bitboard;
+import org.onlinecheckers.bot.model.Move;
+import org.onlinecheckers.bot.model.MoveList;
+import org.onlinecheckers.bot.model.Team;
+import org.onlinecheckers.bot.service.BotAlgorithm;
+import org.onlinecheckers.bot.service.EndgameTablebase;
+import org.onlinecheckers.bot.service.MoveGenerator;
+import org.onlinecheckers.bot.service.SearchConfig;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Plays engine-vs-engine games and records their positions with the final result,
+ * as training data for tools.TexelTuner.
+ *
+ * Games start from a corpus of positions (one per line, board history format), or from
+ * distinct positions a few plies after the initial one, and are played at a fixed depth
+ * with the hard difficulty settings (quiescence search included). A game ends when the
+ * side to move has no move, when the position is in the endgame tables (their result is
+ * exact) or on the third repetition of a position (a draw). Games still going after 200
+ * plies are adjudicated: a lead of ADJUDICATION_MARGIN pieces wins, anything else is a draw.
+ * Fixed-depth engines often cannot convert won endings, and scoring those as draws would
+ * teach the tuner that a big material lead is worth nothing.
+ *
+ * Only quiet positions (no capture for the side to move) are written, one per line:
+ * the position in board history format, then the result for white (1, 0.5 or 0).
+ *
+ * Usage: java -cp bot-core.jar org.onlinecheckers.bot.tools.SelfPlay
+ *        output-file [games=2000] [depth=4] [threads=available processors] [corpus-file]
+ */
+public class SelfPlay {
+
+    static final int MAX_PLIES = 200;
+    private static final int DIFFICULTY = 3;
+
+    // Piece lead that wins a game adjudicated after MAX_PLIES
+    static final int ADJUDICATION_MARGIN = 2;
+
+    // Games are played at a fixed depth: the time budget never stops a search
+    private static final long NO_TIME_LIMIT_MS = 3_600_000;
+
+    // Plies played from the initial position to build the default corpus
+    static final int OPENING_PLIES = 6;
+
+    public static void main(String[] args) throws IOException, InterruptedException, ExecutionException {
+        if (args.length < 1) {
+            System.err.println("Usage: SelfPlay output-file [games] [depth] [threads] [corpus-file]");
+            System.exit(1);
+        }
+
+        Path output = Path.of(args[0]);
+        int games = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        int depth = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        List<Bitboard> corpus = args.length > 4 ? readCorpus(Path.of(args[4])) : openings(OPENING_PLIES);
+        System.out.println(corpus.size() + " start positions, " + games + " games at depth " + depth
+                           + " on " + threads + " threads");
+
+        // Spread the games over the whole corpus, in a reproducible order
+        Collections.shuffle(corpus, new Random(42));
+
+        SearchConfig config = new SearchConfig();
+        config.setOpeningBookEnabled(false);
+        config.setMaxDepth(DIFFICULTY, depth);
+        config.setTimeLimitMs(DIFFICULTY, NO_TIME_LIMIT_MS);
+        config.setMaxTimeLimitMs(NO_TIME_LIMIT_MS);
+        EndgameTablebase tablebase = EndgameTablebase.loadDefault();
+
+        // The engine logs every move: keep the console for progress
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        ThreadLocal<BotAlgorithm> engines = ThreadLocal.withInitial(() -> new BotAlgorithm(config));
+        AtomicInteger done = new AtomicInteger();
+        long start = System.currentTimeMillis();
+
+        List<Future<List<String>>> results = new ArrayList<>();
+        for (int g = 0; g < games; g++) {
+            Bitboard position = corpus.get(g % corpus.size());
+            results.add(executor.submit(() -> {
+                BotAlgorithm engine = engines.get();
+                engine.clearTranspositionTable();
+                List<String> lines = play(engine, tablebase, position.copy());
+                int finished = done.incrementAndGet();
+                if (finished % 100 == 0) {
+                    console.println(finished + " games (" + (System.currentTimeMillis() - start) / 1000 + " s)");
+                }
+                return lines;
+            }));
+        }
+
+        int positions = 0;
+        try (BufferedWriter writer = Files.newBufferedWriter(output)) {
+            for (Future<List<String>> result : results) {
+                for (String line : result.get()) {
+                    writer.write(line);
+                    writer.newLine();
+                    positions++;
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+            System.setOut(console);
+        }
+        System.out.println("Wrote " + positions + " positions to " + output);
+    }
+
+    /**
+     * Play one game to the end
+     *
+     * @return The quiet positions of the game, each followed by the result for white
+     */
+    static List<String> play(BotAlgorithm engine, EndgameTablebase tablebase, Bitboard board) {
+        List<String> history = new ArrayList<>();
+        List<String> quiet = new ArrayList<>();
+        Map<Long, Integer> seen = new HashMap<>();
+        MoveList moves = new MoveList();
+        String result = null;
+
+        for (int ply = 0; ply < MAX_PLIES; ply++) {
+            Team side = board.getSideToMove();
+            history.add(board.toHistoryString());
+            if (seen.merge(board.getHash(), 1, Integer::sum) >= 3) {
+                result = "0.5";
+                break;
+            }
+
+            MoveGenerator.getAllPossibleMoves(board, side, moves);
+            if (moves.isEmpty()) {
+                result = side == Team.WHITE ? "0" : "1";
+                break;
+            }
+
+            int exact = tablebase != null ? tablebase.probe(board) : EndgameTablebase.NOT_FOUND;
+            if (exact != EndgameTablebase.NOT_FOUND) {
+                boolean whiteWins = EndgameTablebase.isWin(exact) == (side == Team.WHITE);
+                result = exact == EndgameTablebase.DRAW ? "0.5" : whiteWins ? "1" : "0";
+                break;
+            }
+
+            if (moves.captureCount(0) == 0) {
+                quiet.add(board.toHistoryString());
+            }
+
+            BotMoveRequestDto request = new BotMoveRequestDto(board.toArray(), side == Team.WHITE ? "white" : "black",
+                                                              DIFFICULTY, new ArrayList<>(history));
+            BotMoveResponseDto response = engine.calculateMove(request);
+            int index = indexOf(moves, response.getFrom(), response.getTo(), response.getPath());
+            if (index < 0) {
+                throw new IllegalStateException("Engine played an illegal move in " + board.toHistoryString());
+            }
+            board.makeMove(moves, index);
+        }
+
+        if (result == null) {
+            int lead = Integer.bitCount(board.getWhite()) - Integer.bitCount(board.getBlack());
+            result = lead >= ADJUDICATION_MARGIN ? "1" : lead <= -ADJUDICATION_MARGIN ? "0" : "0.5";
+        }
+
+        List<String> lines = new ArrayList<>(quiet.size());
+        for (String position : quiet) {
+            lines.add(position + " " + result);
+        }
+        return lines;
+    }
+
+    /**
+     * Index of the move an engine answered with, or -1 if it is not a legal move
+     *
+     * @param path Capture path of the answer, null or empty if it doesn't tell the path
+     */
+    static int indexOf(MoveList moves, String from, String to, List<String> path) {
+        List<String> played = path == null ? List.of() : path;
+        for (int i = 0; i < moves.size(); i++) {
+            Move move = moves.toMove(i);
+            List<String> capturePath = move.getCapturePath() == null ? List.of() : move.getCapturePath();
+            if (move.getFromPosition().equals(from) && move.getToPosition().equals(to)
+                    && (played.isEmpty() || capturePath.equals(played))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    static List<Bitboard> readCorpus(Path path) throws IOException {
+        List<Bitboard> corpus = new ArrayList<>();
+        for (String line : Files.readAllLines(path)) {
+            Bitboard position = Bitboard.fromHistoryString(line.trim());
+            if (position != null) {
+                corpus.add(position);
+            }
+        }
+        if (corpus.isEmpty()) {
+            throw new IllegalArgumentException("No positions in " + path);
+        }
+        return corpus;
+    }
+
+    /**
+     * Distinct positions reached after exactly the given number of plies from the initial position
+     */
+    static List<Bitboard> openings(int plies) {
+        Map<Long, Bitboard> positions = new LinkedHashMap<>();
+        collect(Bitboard.startPosition(), plies, positions);
+        return new ArrayList<>(positions.values());
+    }
+
+    private static void collect(Bitboard board, int plies, Map<Long, Bitboard> positions) {
+        if (plies == 0) {
+            positions.putIfAbsent(board.getHash(), board.copy());
+            return;
+        }
+
+        MoveList moves = new MoveList();
+        MoveGenerator.getAllPossibleMoves(board, board.getSideToMove(), moves);
+        for (int i = 0; i < moves.size(); i++) {
+            board.makeMove(moves, i);
+            collect(board, plies - 1, positions);
+            board.unmakeMove();
+        }
+    }
+}
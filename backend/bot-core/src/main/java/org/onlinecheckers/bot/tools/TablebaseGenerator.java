@@ -0,0 +1,213 @@
+package org.onlinecheckers.bot.tools;
+
+import org.onlinecheckers.bot.model.Bitboard;
+import org.onlinecheckers.bot.model.MoveList;
+import org.onlinecheckers.bot.model.Team;
+import org.onlinecheckers.bot.service.EndgameTablebase;
+import org.onlinecheckers.bot.service.MoveGenerator;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds the endgame tables by retrograde analysis: positions where the side to move
+ * has no move are lost, a position is won in n plies if a move leads to a position
+ * lost in n - 1, and lost in n plies if every move leads to a position won in at most
+ * n - 1. Solving passes with n = 1, 2, 3... run until nothing changes; the positions
+ * left unresolved are draws.
+ *
+ * Material groups are solved in dependency order (see EndgameTablebase.materialGroups),
+ * so captures and promotions always lead to groups that are already solved.
+ *
+ * Usage: java -cp bot-core.jar org.onlinecheckers.bot.tools.TablebaseGenerator output-file [pieces=3]
+ *
+ * Copy the output to bot-core/src/main/resources/endgame-tablebase.bin to update the bundled tables.
+ */
+public class TablebaseGenerator {
+
+    // Largest distance a result byte can hold
+    private static final int MAX_DISTANCE = 254;
+
+    private final Map<Integer, byte[]> tables = new HashMap<>();
+    private final Bitboard board = new Bitboard(0, 0, 0, Team.WHITE);
+    private final MoveList moves = new MoveList();
+
+    // Longest distance found so far in any solved group
+    private int maxDistance = 0;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: TablebaseGenerator output-file [pieces]");
+            System.exit(1);
+        }
+
+        Path output = Path.of(args[0]);
+        int pieces = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+
+        long start = System.nanoTime();
+        List<int[]> groups = EndgameTablebase.materialGroups(pieces);
+        TablebaseGenerator generator = new TablebaseGenerator();
+        for (int[] group : groups) {
+            generator.solve(group);
+        }
+
+        generator.write(output, pieces, groups);
+        System.out.printf("Tables up to %d pieces written to %s in %d s%n",
+                          pieces, output, (System.nanoTime() - start) / 1_000_000_000L);
+    }
+
+    /**
+     * Solve every position of a material group
+     */
+    private void solve(int[] group) {
+        long count = EndgameTablebase.positionCount(group[0], group[1], group[2], group[3]);
+        if (count > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Material group too large: " + describe(group));
+        }
+
+        byte[] values = new byte[(int) count];
+        tables.put(key(group), values);
+
+        // Indexes of the legal positions not solved yet
+        int[] pending = new int[values.length];
+        int pendingCount = 0;
+        for (int i = 0; i < values.length; i++) {
+            if (EndgameTablebase.decode(i, group, board)) {
+                pending[pendingCount++] = i;
+            }
+        }
+        int legal = pendingCount;
+
+        // Pass n finds the positions won or lost in exactly n plies. Results from other groups
+        // can still complete positions until n passes their longest distance.
+        int foreignDistance = maxDistance;
+        for (int pass = 0; ; pass++) {
+            int kept = 0;
+            boolean changed = false;
+
+            for (int p = 0; p < pendingCount; p++) {
+                int index = pending[p];
+                EndgameTablebase.decode(index, group, board);
+                int result = result(pass);
+                if (result != EndgameTablebase.DRAW) {
+                    values[index] = (byte) result;
+                    maxDistance = Math.max(maxDistance, EndgameTablebase.distance(result));
+                    changed = true;
+                } else {
+                    pending[kept++] = index;
+                }
+            }
+            pendingCount = kept;
+
+            if (!changed && pass > foreignDistance) {
+                break;
+            }
+        }
+
+        System.out.printf("%s: %d positions, %d draws%n", describe(group), legal, pendingCount);
+    }
+
+    /**
+     * Result of the current board if it is won or lost in exactly the given number of plies,
+     * otherwise DRAW (not resolved yet)
+     */
+    private int result(int pass) {
+        MoveGenerator.getAllPossibleMoves(board, board.getSideToMove(), moves);
+        if (moves.isEmpty()) {
+            return 1;
+        }
+        if (pass == 0) {
+            return EndgameTablebase.DRAW;
+        }
+
+        int fastestLoss = Integer.MAX_VALUE;
+        int slowestWin = -1;
+        boolean allWin = true;
+
+        for (int i = 0; i < moves.size(); i++) {
+            board.makeMove(moves, i);
+            int result = successorResult();
+            board.unmakeMove();
+
+            // Only results of earlier passes are final at this point
+            int distance = EndgameTablebase.distance(result);
+            if (result == EndgameTablebase.DRAW || distance >= pass) {
+                allWin = false;
+            } else if (EndgameTablebase.isWin(result)) {
+                slowestWin = Math.max(slowestWin, distance);
+            } else {
+                fastestLoss = Math.min(fastestLoss, distance);
+                allWin = false;
+            }
+        }
+
+        int distance;
+        if (fastestLoss != Integer.MAX_VALUE) {
+            distance = fastestLoss + 1;
+        } else if (allWin) {
+            distance = slowestWin + 1;
+        } else {
+            return EndgameTablebase.DRAW;
+        }
+
+        if (distance > MAX_DISTANCE) {
+            throw new IllegalStateException("Distance to the end of the game too long to store: " + distance);
+        }
+        return distance + 1;
+    }
+
+    /**
+     * Result of the position reached by a move, for its side to move
+     */
+    private int successorResult() {
+        // The move captured the last piece: the side to move lost
+        if (board.pieces(board.getSideToMove()) == 0) {
+            return 1;
+        }
+
+        int white = board.getWhite();
+        int black = board.getBlack();
+        int kings = board.getKings();
+        byte[] table = tables.get(key(new int[] {
+            Integer.bitCount(white & ~kings), Integer.bitCount(white & kings),
+            Integer.bitCount(black & ~kings), Integer.bitCount(black & kings)
+        }));
+        return table[(int) EndgameTablebase.index(white, black, kings, board.getSideToMove())] & 0xFF;
+    }
+
+    private void write(Path output, int pieces, List<int[]> groups) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(output)))) {
+            out.writeInt(EndgameTablebase.MAGIC);
+            out.writeInt(EndgameTablebase.VERSION);
+            out.writeInt(pieces);
+            out.writeInt(groups.size());
+
+            long offset = EndgameTablebase.HEADER_BYTES + (long) groups.size() * EndgameTablebase.GROUP_BYTES;
+            for (int[] group : groups) {
+                for (int count : group) {
+                    out.writeByte(count);
+                }
+                out.writeLong(offset);
+                offset += tables.get(key(group)).length;
+            }
+
+            for (int[] group : groups) {
+                out.write(tables.get(key(group)));
+            }
+        }
+    }
+
+    private static int key(int[] group) {
+        return group[0] | (group[1] << 8) | (group[2] << 16) | (group[3] << 24);
+    }
+
+    private static String describe(int[] group) {
+        return group[0] + "w " + group[1] + "W " + group[2] + "b " + group[3] + "B";
+    }
+}
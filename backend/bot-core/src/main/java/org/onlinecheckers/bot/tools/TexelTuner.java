@@ -0,0 +1,198 @@
+package org.onlinecheckers.bot.tools;
+
+import org.onlinecheckers.bot.model.Bitboard;
+import org.onlinecheckers.bot.model.Features;
+import org.onlinecheckers.bot.model.Team;
+import org.onlinecheckers.bot.service.EvaluationWeights;
+import org.onlinecheckers.bot.service.Evaluator;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fits the evaluation weights to the results of self-play games (see tools.SelfPlay)
+ * with Texel's method: the evaluation of each position, mapped to an expected result by
+ * a logistic curve, should predict the result of the game it was played in.
+ *
+ * First the curve's scale K is fitted to the current weights, then each weight is moved
+ * up or down in decreasing steps as long as the mean squared error between expected and
+ * actual results decreases. The man value stays fixed, so scores keep their scale.
+ * Positions with the same feature differences are grouped, so each error computation
+ * is cheap whatever the number of games.
+ *
+ * Usage: java -cp bot-core.jar org.onlinecheckers.bot.tools.TexelTuner output-file positions-file...
+ *
+ * Copy the output to bot-core/src/main/resources/evaluation-weights.properties to update the bundled weights.
+ */
+public class TexelTuner {
+
+    // Weight steps, largest first; the search stops when no step of 1 improves the error
+    private static final int[] STEPS = {16, 8, 4, 2, 1};
+
+    /**
+     * Positions with the same features difference (white minus black): men, kings,
+     * advancement, edges. Their results are summed, so they count as many positions.
+     */
+    private static final class Sample {
+        final int[] difference;
+        int count = 0;
+        double resultSum = 0;
+        double resultSquareSum = 0;
+
+        Sample(int[] difference) {
+            this.difference = difference;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: TexelTuner output-file positions-file...");
+            System.exit(1);
+        }
+
+        List<Sample> samples = new ArrayList<>();
+        int positions = 0;
+        for (int i = 1; i < args.length; i++) {
+            positions += read(Path.of(args[i]), samples);
+        }
+        System.out.println(positions + " positions, " + samples.size() + " distinct feature differences");
+
+        int[] weights = toArray(Evaluator.weights());
+        double k = fitScale(samples, positions, weights);
+        double error = error(samples, positions, weights, k);
+        System.out.printf("Start: %s, K=%.4f, error %.6f%n", fromArray(weights), k, error);
+
+        for (int step : STEPS) {
+            boolean improved = true;
+            while (improved) {
+                improved = false;
+                // The man value (index 0) is the unit of the scores
+                for (int w = 1; w < weights.length; w++) {
+                    for (int direction : new int[] {step, -step}) {
+                        weights[w] += direction;
+                        double candidate = error(samples, positions, weights, k);
+                        if (candidate < error && weights[w] >= 0) {
+                            error = candidate;
+                            improved = true;
+                            break;
+                        }
+                        weights[w] -= direction;
+                    }
+                }
+            }
+            System.out.printf("Step %d: %s, error %.6f%n", step, fromArray(weights), error);
+        }
+
+        EvaluationWeights tuned = fromArray(weights);
+        tuned.write(Path.of(args[0]), String.format("Tuned by TexelTuner on %d self-play positions (K=%.4f, error %.6f)",
+                                                    positions, k, error));
+        System.out.println("Wrote " + tuned + " to " + args[0]);
+    }
+
+    /**
+     * Read a positions file, grouping its positions into the samples
+     *
+     * @return Number of positions read
+     */
+    private static int read(Path path, List<Sample> samples) throws IOException {
+        Map<String, Sample> byKey = new HashMap<>();
+        for (Sample sample : samples) {
+            byKey.put(key(sample.difference), sample);
+        }
+
+        int count = 0;
+        try (BufferedReader reader = Files.newBufferedReader(path)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int separator = line.lastIndexOf(' ');
+                if (separator < 0) {
+                    continue;
+                }
+                Bitboard board = Bitboard.fromHistoryString(line.substring(0, separator));
+                if (board == null) {
+                    continue;
+                }
+
+                int[] difference = difference(board);
+                Sample sample = byKey.computeIfAbsent(key(difference), k -> {
+                    Sample created = new Sample(difference);
+                    samples.add(created);
+                    return created;
+                });
+                double result = Double.parseDouble(line.substring(separator + 1));
+                sample.count++;
+                sample.resultSum += result;
+                sample.resultSquareSum += result * result;
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static int[] difference(Bitboard board) {
+        int white = board.features(Team.WHITE);
+        int black = board.features(Team.BLACK);
+        return new int[] {
+            Features.men(white) - Features.men(black),
+            Features.kings(white) - Features.kings(black),
+            Features.advancement(white) - Features.advancement(black),
+            Features.edges(white) - Features.edges(black)
+        };
+    }
+
+    private static String key(int[] difference) {
+        return difference[0] + "," + difference[1] + "," + difference[2] + "," + difference[3];
+    }
+
+    /**
+     * Find the logistic scale that best maps the current evaluations to the results
+     * (golden section search, the error is unimodal in K)
+     */
+    private static double fitScale(List<Sample> samples, int positions, int[] weights) {
+        double low = 0.001;
+        double high = 10;
+        double ratio = (Math.sqrt(5) - 1) / 2;
+        while (high - low > 1e-5) {
+            double a = high - ratio * (high - low);
+            double b = low + ratio * (high - low);
+            if (error(samples, positions, weights, a) < error(samples, positions, weights, b)) {
+                high = b;
+            } else {
+                low = a;
+            }
+        }
+        return (low + high) / 2;
+    }
+
+    /**
+     * Mean squared error between the expected results (for white) and the actual ones
+     */
+    private static double error(List<Sample> samples, int positions, int[] weights, double k) {
+        double sum = 0;
+        for (Sample sample : samples) {
+            int score = 0;
+            for (int i = 0; i < weights.length; i++) {
+                score += weights[i] * sample.difference[i];
+            }
+            double expected = 1 / (1 + Math.pow(10, -k * score / 400));
+
+            // Sum of (result - expected)^2 over the group, expanded so it only needs the sums of the results
+            sum += sample.count * expected * expected - 2 * expected * sample.resultSum + sample.resultSquareSum;
+        }
+        return sum / positions;
+    }
+
+    private static int[] toArray(EvaluationWeights weights) {
+        return new int[] {weights.getMan(), weights.getKing(), weights.getAdvancement(), weights.getEdge()};
+    }
+
+    private static EvaluationWeights fromArray(int[] weights) {
+        return new EvaluationWeights(weights[0], weights[1], weights[2], weights[3]);
+    }
+}
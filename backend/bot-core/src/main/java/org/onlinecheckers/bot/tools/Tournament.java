@@ -0,0 +1,407 @@
+package org.onlinecheckers.bot.tools;
+
+import org.onlinecheckers.bot.model.Bitboard;
+import org.onlinecheckers.bot.model.MoveList;
+import org.onlinecheckers.bot.model.Team;
+import org.onlinecheckers.bot.service.EvaluationWeights;
+import org.onlinecheckers.bot.service.MoveGenerator;
+import org.onlinecheckers.bot.service.SearchConfig;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Plays two engine configurations against each other and reports their Elo difference,
+ * their think time and their search speed, so a change to the engine can be weighed as
+ * strength gained against CPU time spent.
+ *
+ * Every opening (a distinct position 6 plies after the initial one, or a position of a
+ * corpus file) is played twice with colours swapped, so neither player profits from a
+ * lopsided opening. Games end like in tools.SelfPlay: no move left loses, the third
+ * repetition of a position is a draw, and after 200 plies a lead of 2 pieces wins.
+ * Games are played in parallel; each player searches single-threaded.
+ *
+ * A player is a comma-separated list of settings (all optional, an empty string or
+ * "default" keeps them all); unset settings keep the hard difficulty defaults of
+ * SearchConfig, except the opening book which is off so that the openings vary:
+ * - depth=N: deepest iteration of the search
+ * - time=MS: time budget per move
+ * - quiescence=N: quiescence nodes per leaf (0 disables the quiescence search)
+ * - book=true|false, tablebase=true|false: opening book and endgame tables
+ * - weights=FILE: evaluation weights (see EvaluationWeights) instead of the bundled ones
+ * - classpath=PATH: engine classes to play instead of these ones, e.g. the bot-core jar
+ *   of another build (entries separated like in a Java class path)
+ * Each player runs in its own class loader, so their weights and static tables never mix.
+ *
+ * Usage: java -cp bot-core.jar org.onlinecheckers.bot.tools.Tournament
+ *        player-a player-b [games=200] [threads=available processors] [corpus-file]
+ * Example: Tournament depth=8 depth=8,quiescence=0 400
+ */
+public class Tournament {
+
+    // Difficulty the players are configured for and asked to play at
+    private static final int DIFFICULTY = 3;
+
+    // Two-sided 95% confidence
+    private static final double Z_95 = 1.96;
+
+    private static final ThreadMXBean THREAD_TIMES = ManagementFactory.getThreadMXBean();
+
+    public static void main(String[] args) throws IOException, InterruptedException, ExecutionException {
+        if (args.length < 2) {
+            System.err.println("Usage: Tournament player-a player-b [games] [threads] [corpus-file]");
+            System.exit(1);
+        }
+
+        Player a = new Player("A", args[0]);
+        Player b = new Player("B", args[1]);
+        int games = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+        List<Bitboard> corpus = args.length > 4 ? SelfPlay.readCorpus(Path.of(args[4]))
+                                                : SelfPlay.openings(SelfPlay.OPENING_PLIES);
+        int pairs = (games + 1) / 2;
+        System.out.println(a + " vs " + b + ": " + pairs * 2 + " games from " + corpus.size()
+                           + " start positions on " + threads + " threads");
+
+        // Spread the games over the whole corpus, in a reproducible order
+        Collections.shuffle(corpus, new Random(42));
+
+        // The engines log every move: keep the console for the results
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        long start = System.currentTimeMillis();
+
+        // Score of A in each pair of games, between 0 and 1
+        List<Double> pairScores = new ArrayList<>(pairs);
+        int wins = 0;
+        int draws = 0;
+        int losses = 0;
+
+        try {
+            List<Future<double[]>> results = new ArrayList<>(pairs);
+            for (int p = 0; p < pairs; p++) {
+                Bitboard opening = corpus.get(p % corpus.size());
+                results.add(executor.submit(() -> new double[] {
+                    play(a, b, opening.copy()),
+                    1 - play(b, a, opening.copy())
+                }));
+            }
+
+            int progressEvery = Math.max(1, pairs / 10);
+            for (Future<double[]> result : results) {
+                double[] scores = result.get();
+                for (double score : scores) {
+                    if (score == 1) {
+                        wins++;
+                    } else if (score == 0) {
+                        losses++;
+                    } else {
+                        draws++;
+                    }
+                }
+                pairScores.add((scores[0] + scores[1]) / 2);
+                if (pairScores.size() % progressEvery == 0 && pairScores.size() < pairs) {
+                    console.printf("%d games (%d s): +%d =%d -%d, Elo %s%n", pairScores.size() * 2,
+                                   (System.currentTimeMillis() - start) / 1000, wins, draws, losses, elo(pairScores));
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+            System.setOut(console);
+        }
+
+        System.out.printf("%d games in %d s%n", pairs * 2, (System.currentTimeMillis() - start) / 1000);
+        System.out.printf("%s: +%d =%d -%d, score %.1f%%%n", a, wins, draws, losses,
+                          100.0 * (wins + draws / 2.0) / (pairs * 2));
+        System.out.println("Elo of A over B (95% confidence): " + elo(pairScores));
+        System.out.println(a.statistics());
+        System.out.println(b.statistics());
+    }
+
+    /**
+     * Play one game to the end
+     *
+     * @return The result for white: 1, 0.5 or 0
+     */
+    private static double play(Player white, Player black, Bitboard board) {
+        white.newGame();
+        black.newGame();
+        List<String> history = new ArrayList<>();
+        Map<Long, Integer> seen = new HashMap<>();
+        MoveList moves = new MoveList();
+
+        for (int ply = 0; ply < SelfPlay.MAX_PLIES; ply++) {
+            Team side = board.getSideToMove();
+            history.add(board.toHistoryString());
+            if (seen.merge(board.getHash(), 1, Integer::sum) >= 3) {
+                return 0.5;
+            }
+
+            MoveGenerator.getAllPossibleMoves(board, side, moves);
+            if (moves.isEmpty()) {
+                return side == Team.WHITE ? 0 : 1;
+            }
+
+            Player player = side == Team.WHITE ? white : black;
+            int index = player.move(board, moves, history);
+            if (index < 0) {
+                throw new IllegalStateException(player + " played an illegal move in " + board.toHistoryString());
+            }
+            board.makeMove(moves, index);
+        }
+
+        int lead = Integer.bitCount(board.getWhite()) - Integer.bitCount(board.getBlack());
+        return lead >= SelfPlay.ADJUDICATION_MARGIN ? 1 : lead <= -SelfPlay.ADJUDICATION_MARGIN ? 0 : 0.5;
+    }
+
+    /**
+     * Elo difference with its confidence interval, from the scores of the pairs of games.
+     * Pairs are the independent samples: both games of a pair start from the same opening.
+     */
+    private static String elo(List<Double> pairScores) {
+        int n = pairScores.size();
+        double mean = 0;
+        for (double score : pairScores) {
+            mean += score;
+        }
+        mean /= n;
+
+        double variance = 0;
+        for (double score : pairScores) {
+            variance += (score - mean) * (score - mean);
+        }
+        double margin = n > 1 ? Z_95 * Math.sqrt(variance / (n - 1) / n) : 0.5;
+
+        return String.format("%+.1f [%+.1f, %+.1f]", elo(mean), elo(mean - margin), elo(mean + margin));
+    }
+
+    /**
+     * Elo difference that gives the expected score (infinite for a score of 0 or 1)
+     */
+    private static double elo(double score) {
+        if (score <= 0) {
+            return Double.NEGATIVE_INFINITY;
+        }
+        if (score >= 1) {
+            return Double.POSITIVE_INFINITY;
+        }
+        return 400 * Math.log10(score / (1 - score));
+    }
+
+    /**
+     * One engine configuration, loaded in its own class loader and called through the
+     * public engine API (so older builds of the engine can play too). Each game thread
+     * gets its own engine; statistics are summed over all of them.
+     */
+    private static final class Player {
+
+        private final String name;
+        private final String spec;
+        private final Object config;
+        private final Constructor<?> engineConstructor;
+        private final Constructor<?> requestConstructor;
+        private final Method calculateMove;
+        private final Method clearTranspositionTable;
+        private final Method totalNodes;
+        private final Method from;
+        private final Method to;
+        private final Method path;
+        private final ThreadLocal<Object> engines = ThreadLocal.withInitial(this::createEngine);
+
+        private final LongAdder moves = new LongAdder();
+        private final LongAdder nodes = new LongAdder();
+        private final LongAdder wallNanos = new LongAdder();
+        private final LongAdder cpuNanos = new LongAdder();
+
+        Player(String name, String spec) throws IOException {
+            this.name = name;
+            this.spec = spec.isBlank() ? "default" : spec;
+            Map<String, String> settings = parse(spec);
+
+            String weights = settings.remove("weights");
+            String classpath = settings.remove("classpath");
+            ClassLoader loader = loader(classpath, weights == null ? null : Path.of(weights));
+
+            try {
+                Class<?> configClass = loader.loadClass(SearchConfig.class.getName());
+                config = configClass.getConstructor().newInstance();
+                configure("setOpeningBookEnabled", boolean.class, Boolean.parseBoolean(settings.getOrDefault("book", "false")));
+                for (Map.Entry<String, String> setting : settings.entrySet()) {
+                    String value = setting.getValue();
+                    switch (setting.getKey()) {
+                        case "depth" -> configureDifficulty("setMaxDepth", int.class, Integer.parseInt(value));
+                        case "time" -> {
+                            long timeMs = Long.parseLong(value);
+                            configureDifficulty("setTimeLimitMs", long.class, timeMs);
+                            configure("setMaxTimeLimitMs", long.class, Math.max(timeMs, SearchConfig.DEFAULT_MAX_TIME_LIMIT_MS));
+                        }
+                        case "quiescence" -> configure("setQuiescenceNodeLimit", int.class, Integer.parseInt(value));
+                        case "tablebase" -> configure("setTablebaseEnabled", boolean.class, Boolean.parseBoolean(value));
+                        case "book" -> {
+                            // Already set
+                        }
+                        default -> throw new IllegalArgumentException("Unknown setting " + setting.getKey() + " in " + spec);
+                    }
+                }
+
+                Class<?> engineClass = loader.loadClass("org.onlinecheckers.bot.service.BotAlgorithm");
+                Class<?> requestClass = loader.loadClass("org.onlinecheckers.bot.dto.BotMoveRequestDto");
+                Class<?> responseClass = loader.loadClass("org.onlinecheckers.bot.dto.BotMoveResponseDto");
+                engineConstructor = engineClass.getConstructor(configClass);
+                requestConstructor = requestClass.getConstructor(String[][].class, String.class, int.class, List.class);
+                calculateMove = engineClass.getMethod("calculateMove", requestClass);
+                clearTranspositionTable = engineClass.getMethod("clearTranspositionTable");
+                totalNodes = engineClass.getMethod("getTotalNodes");
+                from = responseClass.getMethod("getFrom");
+                to = responseClass.getMethod("getTo");
+                path = responseClass.getMethod("getPath");
+            } catch (NoSuchMethodException e) {
+                throw new IllegalArgumentException("Engine of " + spec + " does not support " + e.getMessage(), e);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Cannot set up the engine of " + spec, e);
+            }
+        }
+
+        private static Map<String, String> parse(String spec) {
+            Map<String, String> settings = new LinkedHashMap<>();
+            if (spec.isBlank() || spec.equals("default")) {
+                return settings;
+            }
+            for (String setting : spec.split(",")) {
+                int equals = setting.indexOf('=');
+                if (equals < 0) {
+                    throw new IllegalArgumentException("Expected name=value, got " + setting + " in " + spec);
+                }
+                settings.put(setting.substring(0, equals).trim(), setting.substring(equals + 1).trim());
+            }
+            return settings;
+        }
+
+        /**
+         * Class loader for the engine classes: the given class path (if any) ahead of this
+         * tool's, and the given evaluation weights (if any) instead of the bundled ones
+         */
+        private static ClassLoader loader(String classpath, Path weights) throws IOException {
+            List<URL> urls = new ArrayList<>();
+            if (classpath != null) {
+                for (String entry : classpath.split(File.pathSeparator)) {
+                    urls.add(Path.of(entry).toUri().toURL());
+                }
+            }
+            for (String entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+                urls.add(Path.of(entry).toUri().toURL());
+            }
+
+            if (weights != null && !Files.isReadable(weights)) {
+                throw new IllegalArgumentException("Cannot read evaluation weights " + weights);
+            }
+            URL weightsUrl = weights != null ? weights.toUri().toURL() : null;
+            String weightsResource = EvaluationWeights.DEFAULT_RESOURCE.substring(1);
+
+            return new URLClassLoader(urls.toArray(new URL[0]), ClassLoader.getPlatformClassLoader()) {
+                @Override
+                public URL getResource(String name) {
+                    return weightsUrl != null && name.equals(weightsResource) ? weightsUrl : super.getResource(name);
+                }
+            };
+        }
+
+        private void configure(String setter, Class<?> type, Object value) throws ReflectiveOperationException {
+            config.getClass().getMethod(setter, type).invoke(config, value);
+        }
+
+        /**
+         * Call a per-difficulty setter of the configuration, for the difficulty played
+         */
+        private void configureDifficulty(String setter, Class<?> type, Object value) throws ReflectiveOperationException {
+            config.getClass().getMethod(setter, int.class, type).invoke(config, DIFFICULTY, value);
+        }
+
+        private Object createEngine() {
+            try {
+                return engineConstructor.newInstance(config);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Cannot create the engine of " + spec, e);
+            }
+        }
+
+        void newGame() {
+            try {
+                clearTranspositionTable.invoke(engines.get());
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Cannot reset the engine of " + spec, e);
+            }
+        }
+
+        /**
+         * Ask the engine for its move, timing the search
+         *
+         * @return Index of the move in the legal moves, -1 if the engine answered an illegal move
+         */
+        @SuppressWarnings("unchecked")
+        int move(Bitboard board, MoveList legalMoves, List<String> history) {
+            Object engine = engines.get();
+            String color = board.getSideToMove() == Team.WHITE ? "white" : "black";
+            try {
+                Object request = requestConstructor.newInstance(board.toArray(), color, DIFFICULTY, new ArrayList<>(history));
+
+                long nodesBefore = (long) totalNodes.invoke(engine);
+                long cpuBefore = THREAD_TIMES.getCurrentThreadCpuTime();
+                long wallBefore = System.nanoTime();
+                Object response = calculateMove.invoke(engine, request);
+                wallNanos.add(System.nanoTime() - wallBefore);
+                cpuNanos.add(THREAD_TIMES.getCurrentThreadCpuTime() - cpuBefore);
+                nodes.add((long) totalNodes.invoke(engine) - nodesBefore);
+                moves.increment();
+
+                return SelfPlay.indexOf(legalMoves, (String) from.invoke(response), (String) to.invoke(response),
+                                        (List<String>) path.invoke(response));
+            } catch (InvocationTargetException e) {
+                throw new IllegalStateException(this + " failed in " + board.toHistoryString(), e.getCause());
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException(this + " failed in " + board.toHistoryString(), e);
+            }
+        }
+
+        /**
+         * Mean think time (wall clock and CPU) per move and search speed in nodes per CPU second
+         */
+        String statistics() {
+            long count = Math.max(1, moves.sum());
+            double cpuSeconds = cpuNanos.sum() / 1e9;
+            return String.format("%s: %d moves, %.2f ms/move (%.2f ms CPU), %d nodes/move, %.0f nodes/s",
+                                 this, moves.sum(), wallNanos.sum() / 1e6 / count, cpuNanos.sum() / 1e6 / count,
+                                 nodes.sum() / count, cpuSeconds > 0 ? nodes.sum() / cpuSeconds : 0);
+        }
+
+        @Override
+        public String toString() {
+            return name + " (" + spec + ")";
+        }
+    }
+}
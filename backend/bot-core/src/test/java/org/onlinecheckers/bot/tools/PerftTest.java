@@ -0,0 +1,67 @@
+package org.onlinecheckers.bot.tools;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.onlinecheckers.bot.model.Bitboard;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Known perft counts. They were cross-checked against the original String[][] move
+ * generator, so any change here means the rules of the game changed.
+ */
+class PerftTest {
+
+    private static final String START = ".b.b.b.bb.b.b.b..b.b.b.b................w.w.w.w..w.w.w.ww.w.w.w._white";
+
+    @ParameterizedTest(name = "{0} depth {1}")
+    @CsvSource({
+        // Initial position
+        START + ", 1, 7",
+        START + ", 2, 49",
+        START + ", 3, 302",
+        START + ", 4, 1469",
+        START + ", 5, 7361",
+        START + ", 6, 36473",
+        START + ", 7, 177532",
+        START + ", 8, 828783",
+
+        // Forced single capture for black
+        ".b.b.b.bb.b.b.b..b.w...b......b....w........w.w..w.w.w.ww.w.w.w._black, 6, 5402",
+
+        // Middlegame
+        ".b...b.bb.b.b........b.w.........w...w......w....w.w...w..w....._white, 6, 62552",
+
+        // Black king with a double capture
+        "...b...bb.b......b............w..w.w.............w.w........B..._black, 7, 17487",
+
+        // King endgame
+        "...W........w...........w..............b......b.............B..._white, 7, 45678"
+    })
+    void countsMatchKnownValues(String position, int depth, long expected) {
+        Bitboard board = Bitboard.fromHistoryString(position);
+        assertEquals(expected, new Perft(board, depth).count(depth));
+    }
+
+    @Test
+    void divideSumsToTotal() {
+        Perft perft = new Perft(Bitboard.fromHistoryString(START), 5);
+        Map<String, Long> divide = perft.divide(5);
+
+        assertEquals(7, divide.size());
+        assertEquals(7361L, divide.values().stream().mapToLong(Long::longValue).sum());
+    }
+
+    @Test
+    void countRestoresPosition() {
+        Bitboard board = Bitboard.startPosition();
+        long hash = board.getHash();
+        new Perft(board, 4).count(4);
+
+        assertEquals(hash, board.getHash());
+        assertEquals(START, board.toHistoryString());
+    }
+}
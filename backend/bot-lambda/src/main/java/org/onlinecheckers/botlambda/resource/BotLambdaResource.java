@@ -7,8 +7,11 @@ import jakarta.ws.rs.core.Response;
 import org.onlinecheckers.bot.dto.BotMoveRequestDto;
 import org.onlinecheckers.bot.dto.BotMoveResponseDto;
 import org.onlinecheckers.botlambda.service.BotService;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.jboss.logging.Logger;
 
+import java.util.List;
+
 @Path("/bot")
 @Produces(MediaType.APPLICATION_JSON)
 @Consumes(MediaType.APPLICATION_JSON)
@@ -19,6 +22,10 @@ public class BotLambdaResource {
     @Inject
     BotService botService;
 
+    // Largest batch accepted by /bot/moves, so a batch fits in the Lambda timeout
+    @ConfigProperty(name = "bot.batch.max-size", defaultValue = "16")
+    int batchMaxSize;
+
     @POST
     @Path("/move")
     public Response calculateMove(BotMoveRequestDto request) {
@@ -27,23 +34,10 @@ public class BotLambdaResource {
         
         try {
             // Validate input
-            if (request.getBoard() == null || request.getBoard().length != 8) {
-                return Response.status(Response.Status.BAD_REQUEST)
-                    .entity("{\"error\":\"Invalid board state\"}")
-                    .build();
-            }
-            
-            if (request.getPlayerColor() == null || 
-                (!request.getPlayerColor().equalsIgnoreCase("white") && 
-                 !request.getPlayerColor().equalsIgnoreCase("black"))) {
-                return Response.status(Response.Status.BAD_REQUEST)
-                    .entity("{\"error\":\"Invalid player color\"}")
-                    .build();
-            }
-            
-            if (request.getDifficulty() < 1 || request.getDifficulty() > 3) {
+            String error = validate(request);
+            if (error != null) {
                 return Response.status(Response.Status.BAD_REQUEST)
-                    .entity("{\"error\":\"Invalid difficulty level\"}")
+                    .entity("{\"error\":\"" + error + "\"}")
                     .build();
             }
 
@@ -69,9 +63,84 @@ public class BotLambdaResource {
         }
     }
 
+    /**
+     * Calculate the moves of several positions in one invocation, so they share the
+     * HTTP and Lambda overhead. Responses come in the order of the requests; a position
+     * with no legal move gets the "00" to "00" answer instead of failing the batch.
+     */
+    @POST
+    @Path("/moves")
+    public Response calculateMoves(List<BotMoveRequestDto> requests) {
+        if (requests == null) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                .entity("{\"error\":\"Missing requests\"}")
+                .build();
+        }
+
+        LOG.debugf("Received batch of %d bot move requests", requests.size());
+
+        if (requests.size() > batchMaxSize) {
+            return Response.status(Response.Status.BAD_REQUEST)
+                .entity("{\"error\":\"Too many requests in batch (max " + batchMaxSize + ")\"}")
+                .build();
+        }
+
+        try {
+            for (int i = 0; i < requests.size(); i++) {
+                String error = validate(requests.get(i));
+                if (error != null) {
+                    return Response.status(Response.Status.BAD_REQUEST)
+                        .entity("{\"error\":\"" + error + " at index " + i + "\"}")
+                        .build();
+                }
+            }
+
+            List<BotMoveResponseDto> responses = botService.calculateBestMoves(requests);
+            return Response.ok(responses).build();
+
+        } catch (Exception e) {
+            LOG.errorf(e, "Error calculating batch of bot moves");
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
+                .entity("{\"error\":\"Internal server error: " + e.getMessage() + "\"}")
+                .build();
+        }
+    }
+
+    /**
+     * Status, with the engine start-up time and the resident memory (-1 when not known),
+     * which the cold-start tests check against their budgets
+     */
     @GET
     @Path("/health")
     public Response health() {
-        return Response.ok("{\"status\":\"UP\",\"service\":\"bot-lambda\"}").build();
+        return Response.ok("{\"status\":\"UP\",\"service\":\"bot-lambda\""
+                + ",\"initMs\":" + botService.getInitMs()
+                + ",\"rssKb\":" + botService.getResidentMemoryKb() + "}").build();
+    }
+
+    /**
+     * Check a move request
+     *
+     * @return The error message, or null if the request is valid
+     */
+    private String validate(BotMoveRequestDto request) {
+        if (request == null || request.getBoard() == null || request.getBoard().length != 8) {
+            return "Invalid board state";
+        }
+
+        if (request.getPlayerColor() == null ||
+            (!request.getPlayerColor().equalsIgnoreCase("white") &&
+             !request.getPlayerColor().equalsIgnoreCase("black"))) {
+            return "Invalid player color";
+        }
+
+        if (request.getDifficulty() < 1 || request.getDifficulty() > 4) {
+            return "Invalid difficulty level";
+        }
+
+        if (request.getTimeLimitMs() != null && request.getTimeLimitMs() <= 0) {
+            return "Invalid time limit";
+        }
+        return null;
     }
-}
\ No newline at end of file
+}
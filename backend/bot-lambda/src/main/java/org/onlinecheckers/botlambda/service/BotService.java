@@ -1,18 +1,152 @@
 package org.onlinecheckers.botlambda.service;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import io.quarkus.runtime.Startup;
 import jakarta.enterprise.context.ApplicationScoped;
 import org.onlinecheckers.bot.dto.BotMoveRequestDto;
 import org.onlinecheckers.bot.dto.BotMoveResponseDto;
+import org.onlinecheckers.bot.model.Bitboard;
 import org.onlinecheckers.bot.service.BotAlgorithm;
+import org.onlinecheckers.bot.service.SearchConfig;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.jboss.logging.Logger;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Bot engine of the Lambda.
+ *
+ * The engine is created when the function starts rather than on the first request, so loading
+ * it falls in the Lambda init phase; a short warm-up search then loads and compiles the search
+ * code before the first invocation. In native images the lookup tables, opening book,
+ * endgame tables and evaluation weights are initialized at build time (see application.properties).
+ */
+@Startup
 @ApplicationScoped
 public class BotService {
 
     private static final Logger LOG = Logger.getLogger(BotService.class);
     
+    @ConfigProperty(name = "bot.search.tt-size-mb", defaultValue = "16")
+    int transpositionTableSizeMb;
+
+    @ConfigProperty(name = "bot.search.max-time-limit-ms", defaultValue = "5000")
+    long maxTimeLimitMs;
+
+    @ConfigProperty(name = "bot.search.threads", defaultValue = "1")
+    int searchThreads;
+
+    @ConfigProperty(name = "bot.search.opening-book.enabled", defaultValue = "true")
+    boolean openingBookEnabled;
+
+    @ConfigProperty(name = "bot.search.opening-book.path")
+    Optional<String> openingBookPath;
+
+    @ConfigProperty(name = "bot.search.tablebase.enabled", defaultValue = "true")
+    boolean tablebaseEnabled;
+
+    @ConfigProperty(name = "bot.search.tablebase.path")
+    Optional<String> tablebasePath;
+
+    @ConfigProperty(name = "bot.search.quiescence-nodes", defaultValue = "256")
+    int quiescenceNodeLimit;
+
+    @ConfigProperty(name = "bot.batch.threads", defaultValue = "2")
+    int batchThreads;
+
+    @ConfigProperty(name = "bot.warmup.enabled", defaultValue = "true")
+    boolean warmupEnabled;
+
+    // Difficulty of the warm-up search from the start position (2: a full search, no opening book)
+    @ConfigProperty(name = "bot.warmup.difficulty", defaultValue = "2")
+    int warmupDifficulty;
+
     // Use the shared bot-core algorithm
-    private final BotAlgorithm botAlgorithm = new BotAlgorithm();
+    private BotAlgorithm botAlgorithm;
+
+    // Positions of a batch searched at the same time
+    private ExecutorService batchExecutor;
+
+    // Time taken to create and warm up the engine
+    private long initMs;
+
+    @PostConstruct
+    void init() {
+        long startTime = System.currentTimeMillis();
+
+        SearchConfig config = new SearchConfig();
+        config.setTranspositionTableSizeMb(transpositionTableSizeMb);
+        config.setMaxTimeLimitMs(maxTimeLimitMs);
+        config.setThreads(searchThreads);
+        config.setOpeningBookEnabled(openingBookEnabled);
+        config.setOpeningBookPath(openingBookPath.orElse(null));
+        config.setTablebaseEnabled(tablebaseEnabled);
+        config.setTablebasePath(tablebasePath.orElse(null));
+        config.setQuiescenceNodeLimit(quiescenceNodeLimit);
+        botAlgorithm = new BotAlgorithm(config);
+        batchExecutor = Executors.newFixedThreadPool(batchThreads, r -> {
+            Thread thread = new Thread(r, "bot-batch");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        if (warmupEnabled) {
+            warmUp();
+        }
+        initMs = System.currentTimeMillis() - startTime;
+        LOG.infof("Bot engine ready in %d ms", initMs);
+    }
+
+    /**
+     * Search the start position once, so the first real request does not pay for class
+     * loading and, on the JVM, for interpreted search code
+     */
+    private void warmUp() {
+        BotMoveRequestDto request = new BotMoveRequestDto(Bitboard.startPosition().toArray(), "white", warmupDifficulty, List.of());
+        try {
+            botAlgorithm.calculateMove(request);
+        } catch (RuntimeException e) {
+            LOG.warn("Bot engine warm-up failed", e);
+        }
+    }
+
+    @PreDestroy
+    void destroy() {
+        batchExecutor.shutdownNow();
+        botAlgorithm.shutdown();
+    }
+
+    public long getInitMs() {
+        return initMs;
+    }
+
+    /**
+     * Resident memory of the process, from /proc (Linux only)
+     *
+     * @return The resident set size in kB, or -1 if not available
+     */
+    public long getResidentMemoryKb() {
+        try {
+            for (String line : Files.readAllLines(Path.of("/proc/self/status"))) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.replaceAll("[^0-9]", ""));
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            // Not on Linux
+        }
+        return -1;
+    }
 
     public BotMoveResponseDto calculateBestMove(BotMoveRequestDto request) {
         long startTime = System.currentTimeMillis();
@@ -35,4 +169,35 @@ public class BotService {
             throw new RuntimeException("Failed to calculate bot move", e);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Calculate the moves of several positions in one invocation, up to bot.batch.threads
+     * at a time. The searches share the transposition table.
+     *
+     * @return The moves, in the order of the requests
+     */
+    public List<BotMoveResponseDto> calculateBestMoves(List<BotMoveRequestDto> requests) {
+        long startTime = System.currentTimeMillis();
+
+        List<Future<BotMoveResponseDto>> futures = new ArrayList<>(requests.size());
+        for (BotMoveRequestDto request : requests) {
+            futures.add(batchExecutor.submit(() -> calculateBestMove(request)));
+        }
+
+        List<BotMoveResponseDto> responses = new ArrayList<>(requests.size());
+        try {
+            for (Future<BotMoveResponseDto> future : futures) {
+                responses.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Batch calculation interrupted", e);
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            throw new RuntimeException("Failed to calculate batch of bot moves", e.getCause());
+        }
+
+        LOG.debugf("Batch of %d bot moves calculated in %d ms", requests.size(), System.currentTimeMillis() - startTime);
+        return responses;
+    }
+}
@@ -0,0 +1,26 @@
+package org.onlinecheckers.botlambda;
+
+import io.quarkus.test.junit.QuarkusIntegrationTest;
+
+/**
+ * Cold-start benchmark against the packaged function (the native executable with -Pnative),
+ * started fresh for this test, failing when a budget is exceeded
+ */
+@QuarkusIntegrationTest
+class ColdStartIT extends ColdStartTest {
+
+    @Override
+    protected String mode() {
+        return "native";
+    }
+
+    @Override
+    protected Budget defaultBudget() {
+        return new Budget(1000, 500, 300, 256);
+    }
+
+    @Override
+    protected boolean enforceBudget() {
+        return true;
+    }
+}
@@ -0,0 +1,146 @@
+package org.onlinecheckers.botlambda;
+
+import io.quarkus.test.junit.QuarkusTest;
+import io.restassured.http.ContentType;
+import io.restassured.path.json.JsonPath;
+import io.restassured.response.Response;
+import org.junit.jupiter.api.Test;
+import org.onlinecheckers.bot.dto.BotMoveRequestDto;
+import org.onlinecheckers.bot.model.Bitboard;
+import org.onlinecheckers.bot.model.MoveList;
+import org.onlinecheckers.bot.model.Team;
+import org.onlinecheckers.bot.service.MoveGenerator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static io.restassured.RestAssured.given;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Cold-start benchmark, run through the Quarkus Lambda test harness (requests go through the
+ * mock Lambda event server). Measures, and checks against a budget per mode:
+ * - the engine start-up time reported by /bot/health (creation and warm-up)
+ * - the latency of the first move, the first request the function serves
+ * - the latency of the first moves of a game
+ * - the resident memory after those moves
+ *
+ * This class runs on the JVM with the unit tests, where timings depend on the machine: it
+ * only reports them, and checks the budgets with -Dcoldstart.enforce=true. ColdStartIT runs
+ * it against the native executable (-Pnative) and always checks them.
+ * Budgets can be changed with system properties, e.g. -Dcoldstart.jvm.first-move-ms=800.
+ */
+@QuarkusTest
+class ColdStartTest {
+
+    // Moves played after the first one, alternating sides, and their difficulty
+    private static final int MOVES = 20;
+    private static final int DIFFICULTY = 2;
+
+    /**
+     * Budgets of a run mode
+     */
+    record Budget(long initMs, long firstMoveMs, long p95Ms, long rssMb) {}
+
+    protected String mode() {
+        return "jvm";
+    }
+
+    protected Budget defaultBudget() {
+        return new Budget(5000, 1500, 300, 768);
+    }
+
+    protected boolean enforceBudget() {
+        return Boolean.getBoolean("coldstart.enforce");
+    }
+
+    @Test
+    void coldStart() {
+        Budget budget = budget();
+
+        // The first request must be the first move: nothing else may call the function before
+        Bitboard board = Bitboard.startPosition();
+        List<String> history = new ArrayList<>();
+        history.add(board.toHistoryString());
+
+        long firstMoveMs = playMove(board, history);
+
+        long[] latencies = new long[MOVES];
+        int played = 0;
+        while (played < MOVES) {
+            long latency = playMove(board, history);
+            if (latency < 0) {
+                break; // Game over
+            }
+            latencies[played++] = latency;
+        }
+        assertTrue(played > 0, "No move played after the first one");
+        long[] sorted = Arrays.copyOf(latencies, played);
+        Arrays.sort(sorted);
+        long p50Ms = sorted[(played - 1) / 2];
+        long p95Ms = sorted[(int) Math.ceil(0.95 * played) - 1];
+
+        JsonPath health = given().get("/bot/health").then().statusCode(200).extract().jsonPath();
+        long initMs = health.getLong("initMs");
+        long rssKb = health.getLong("rssKb");
+
+        System.out.printf("Cold start (%s): engine ready in %d ms, first move %d ms, next %d moves p50 %d ms p95 %d ms max %d ms, RSS %s%n",
+                mode(), initMs, firstMoveMs, played, p50Ms, p95Ms, sorted[played - 1],
+                rssKb < 0 ? "unknown" : rssKb / 1024 + " MB");
+
+        if (!enforceBudget()) {
+            return;
+        }
+        assertTrue(initMs <= budget.initMs(), "Engine start-up took " + initMs + " ms, budget " + budget.initMs() + " ms");
+        assertTrue(firstMoveMs <= budget.firstMoveMs(), "First move took " + firstMoveMs + " ms, budget " + budget.firstMoveMs() + " ms");
+        assertTrue(p95Ms <= budget.p95Ms(), "First moves p95 " + p95Ms + " ms, budget " + budget.p95Ms() + " ms");
+        if (rssKb >= 0) {
+            assertTrue(rssKb / 1024 <= budget.rssMb(), "Resident memory " + rssKb / 1024 + " MB, budget " + budget.rssMb() + " MB");
+        }
+    }
+
+    /**
+     * Ask the function for the move of the side to move and play it on the board
+     *
+     * @return The request latency in ms, or -1 if the side to move has no move
+     */
+    private long playMove(Bitboard board, List<String> history) {
+        Team side = board.getSideToMove();
+        MoveList moves = new MoveList();
+        MoveGenerator.getAllPossibleMoves(board, side, moves);
+        if (moves.isEmpty()) {
+            return -1;
+        }
+
+        BotMoveRequestDto request = new BotMoveRequestDto(board.toArray(), side == Team.WHITE ? "white" : "black",
+                DIFFICULTY, new ArrayList<>(history));
+
+        long start = System.nanoTime();
+        Response response = given().contentType(ContentType.JSON).body(request).post("/bot/move");
+        long latencyMs = (System.nanoTime() - start) / 1_000_000;
+        assertEquals(200, response.statusCode(), response.asString());
+
+        String from = response.jsonPath().getString("from");
+        String to = response.jsonPath().getString("to");
+        for (int i = 0; i < moves.size(); i++) {
+            if (Bitboard.position(moves.from(i)).equals(from) && Bitboard.position(moves.to(i)).equals(to)) {
+                board.makeMove(moves, i);
+                history.add(board.toHistoryString());
+                return latencyMs;
+            }
+        }
+        throw new AssertionError("Illegal move " + from + " -> " + to);
+    }
+
+    private Budget budget() {
+        Budget defaults = defaultBudget();
+        String prefix = "coldstart." + mode() + ".";
+        return new Budget(
+                Long.getLong(prefix + "init-ms", defaults.initMs()),
+                Long.getLong(prefix + "first-move-ms", defaults.firstMoveMs()),
+                Long.getLong(prefix + "p95-ms", defaults.p95Ms()),
+                Long.getLong(prefix + "rss-mb", defaults.rssMb()));
+    }
+}
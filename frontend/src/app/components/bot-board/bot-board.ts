@@ -30,6 +30,9 @@ export class BotBoardComponent extends OfflineBoardComponent implements OnInit,
   private boardHistory: string[] = []; // Complete board state history
   private readonly MAX_HISTORY_SIZE = 50; // Keep last 50 positions
 
+  // Identifies this game's requests, so the server can ponder the bot's next move for it
+  private gameId: string = this.newGameId();
+
   // Animation properties for captures
   isAnimatingCapture: boolean = false;
   captureAnimationPath: { row: number, col: number }[] = [];
@@ -129,7 +132,8 @@ export class BotBoardComponent extends OfflineBoardComponent implements OnInit,
       })),
       playerColor: this.botColor,
       difficulty: this.difficulty,
-      boardHistory: [...this.boardHistory] // Send complete board history to prevent loops
+      boardHistory: [...this.boardHistory], // Send complete board history to prevent loops
+      gameId: this.gameId
     };
 
     console.log('Sending to bot:');
@@ -216,6 +220,13 @@ export class BotBoardComponent extends OfflineBoardComponent implements OnInit,
     this.isThinking = false;
   }
 
+  /**
+   * Random id of a new game
+   */
+  private newGameId(): string {
+    return Date.now().toString(36) + Math.random().toString(36).slice(2);
+  }
+
   /**
    * Creates a hash of the current board position
    */
@@ -470,6 +481,7 @@ export class BotBoardComponent extends OfflineBoardComponent implements OnInit,
 
     // Clear board history when game resets
     this.boardHistory = [];
+    this.gameId = this.newGameId();
     console.log('Game reset - board history cleared');
 
     // If bot starts, make its first move
@@ -37,7 +37,7 @@ import { CommonModule } from '@angular/common';
               }
               @if (gameMode === 'bot') {
                 <p i18n="@@INFO_MODAL.BOT_MODE_PARAGRAPH_1">Play against an intelligent AI opponent with adjustable difficulty levels.</p>
-                <p i18n="@@INFO_MODAL.BOT_MODE_PARAGRAPH_2">Choose your difficulty: Easy, Medium, or Hard to match your skill level.</p>
+                <p i18n="@@INFO_MODAL.BOT_MODE_PARAGRAPH_2">Choose your difficulty: Easy, Medium, Hard, or Expert to match your skill level.</p>
                 <p i18n="@@INFO_MODAL.BOT_MODE_PARAGRAPH_3">The bot will analyze the board and make strategic moves. Take your time to plan your strategy!</p>  
               }
             </div>
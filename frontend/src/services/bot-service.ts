@@ -7,6 +7,8 @@ export interface BotMoveRequest {
   playerColor: string;
   difficulty: number;
   boardHistory?: string[];
+  timeLimitMs?: number;
+  gameId?: string;
 }
 
 export interface BotMoveResponse {